@@ -0,0 +1,35 @@
+package searchengine.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Страницы корпуса из {@code src/test/resources/corpus}, общие для бенчмарков и тестов: новость (~4 КБ),
+ * страница «О библиотеке» (~25 КБ) и каталог магазина (~250 КБ).
+ */
+public class Corpus {
+
+    public static final String NEWS_SMALL = "news-small";
+
+    public static final String ABOUT_MEDIUM = "about-medium";
+
+    public static final String CATALOG_LARGE = "catalog-large";
+
+    public static String load(String page) throws IOException {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + page + ".html")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Нет страницы корпуса: " + page);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public static String query(String page) {
+        return switch (page) {
+            case NEWS_SMALL -> "встреча с авторами рассказов";
+            case ABOUT_MEDIUM -> "электронный каталог редких книг";
+            default -> "беспроводные наушники с шумоподавлением";
+        };
+    }
+}
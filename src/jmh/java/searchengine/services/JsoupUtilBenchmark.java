@@ -0,0 +1,48 @@
+package searchengine.services;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор HTML и выделение текста содержимого страницы при индексации.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class JsoupUtilBenchmark {
+
+    @Param({Corpus.NEWS_SMALL, Corpus.ABOUT_MEDIUM, Corpus.CATALOG_LARGE})
+    private String page;
+
+    private String html;
+
+    private Document document;
+
+    @Setup(Level.Trial)
+    public void loadPage() throws IOException {
+        html = Corpus.load(page);
+        document = Jsoup.parse(html);
+    }
+
+    @Benchmark
+    public Document parse() {
+        return Jsoup.parse(html);
+    }
+
+    @Benchmark
+    public int documentContentSelector() {
+        return JsoupUtil.documentContentSelector(document).size();
+    }
+
+    @Benchmark
+    public String documentText() {
+        return JsoupUtil.documentText(document);
+    }
+}
@@ -0,0 +1,42 @@
+package searchengine.services;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лемматизация текста страницы. {@code morphologyCacheSize=0} отключает кэш словоформ
+ * и показывает стоимость прямых обращений к морфологии.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LemmaFinderBenchmark {
+
+    @Param({Corpus.NEWS_SMALL, Corpus.ABOUT_MEDIUM, Corpus.CATALOG_LARGE})
+    private String page;
+
+    @Param({"0", "100000"})
+    private int morphologyCacheSize;
+
+    private String text;
+
+    private LemmaFinder lemmaFinder;
+
+    @Setup(Level.Trial)
+    public void loadPage() throws IOException {
+        text = JsoupUtil.documentText(Jsoup.parse(Corpus.load(page)));
+        lemmaFinder = LemmaFinder.getInstance(morphologyCacheSize);
+    }
+
+    @Benchmark
+    public Map<String, Integer> collectLemmas() {
+        return lemmaFinder.collectLemmas(text);
+    }
+}
@@ -0,0 +1,58 @@
+package searchengine.services;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбиение текста страницы на слова перед лемматизацией: прежняя цепочка
+ * {@code toLowerCase} + {@code replaceAll} + {@code split} против однопроходного
+ * {@link RussianWordTokenizer}. Запуск с {@code -prof gc} показывает объём выделенной памяти.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RussianWordTokenizerBenchmark {
+
+    private static final String[] WORDS = {"Поиск", "страница", "индексация", "сайта", "и", "в", "лемма",
+            "Москва", "каталог", "товары", "цена", "доставка", "ёлка", "по", "для", "новости"};
+
+    private static final String[] SEPARATORS = {" ", " ", " ", ", ", ". ", "\n", " - ", " (2024) ", " www.site.ru "};
+
+    @Param({"10000", "100000", "1000000"})
+    private int textLength;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void generateText() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(textLength + 32);
+        while (builder.length() < textLength) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+            builder.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public void regexSplit(Blackhole blackhole) {
+        String[] words = text.toLowerCase(Locale.ROOT).replaceAll("([^а-я\\s])", " ").trim().split("\\s+");
+        for (String word : words) {
+            if (!word.isBlank()) {
+                blackhole.consume(word);
+            }
+        }
+    }
+
+    @Benchmark
+    public void streamingTokenizer(Blackhole blackhole) {
+        RussianWordTokenizer.forEachWord(text, blackhole::consume);
+    }
+}
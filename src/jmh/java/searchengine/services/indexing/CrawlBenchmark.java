@@ -0,0 +1,210 @@
+package searchengine.services.indexing;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import searchengine.Application;
+import searchengine.model.repositories.PageRepository;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный обход {@link SyntheticSite} через {@link IndexingService#startSitesIndexing()} с базой
+ * во встроенной MariaDB (MariaDB4j). Операция — один обход с записью в базу; страницы в секунду,
+ * пик кучи и объём записи InnoDB выводятся вторичными результатами ({@link CrawlCounters}).
+ * Лимиты скорости по хосту подняты, чтобы измерялся обход, а не вежливость. Параметр {@code minPagesPerSecond} превращает бенчмарк
+ * в проверку регрессий: {@code -Djmh.args="CrawlBenchmark -foe true -p minPagesPerSecond=200"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CrawlBenchmark {
+
+    private static final String DATABASE = "search_engine";
+
+    private static final long SEED = 42;
+
+    private static final long POLL_MILLIS = 20;
+
+    @Param("2000")
+    private int pages;
+
+    @Param("8")
+    private int fanOut;
+
+    @Param("4000")
+    private int pageSize;
+
+    @Param("0")
+    private int latencyMillis;
+
+    @Param("0.01")
+    private double errorRate;
+
+    @Param({"FORK_JOIN", "VIRTUAL_THREADS"})
+    private String crawlMode;
+
+    @Param("1000")
+    private double hostRate;
+
+    @Param("0")
+    private double minPagesPerSecond;
+
+    private DB db;
+
+    private SyntheticSite site;
+
+    private ConfigurableApplicationContext context;
+
+    private IndexingService indexingService;
+
+    private PageRepository pageRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Map<String, Long> innodbStatus;
+
+    private long crawlNanos;
+
+    /**
+     * Показатели итерации обхода. JMH обнуляет их перед итерацией; заполняются после неё
+     * и попадают в отчёт JMH рядом со временем обхода.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CrawlCounters {
+
+        public long pages;
+
+        public long errorPages;
+
+        public long servedMegabytes;
+
+        public double pagesPerSecond;
+
+        public long peakHeapMegabytes;
+
+        public long innodbWrittenMegabytes;
+
+        public long innodbRows;
+
+        @TearDown(Level.Iteration)
+        public void collect(CrawlBenchmark benchmark) {
+            benchmark.report(this);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        DBConfigurationBuilder dbConfig = DBConfigurationBuilder.newBuilder();
+        dbConfig.setPort(0);
+        db = DB.newEmbeddedDB(dbConfig.build());
+        db.start();
+        db.createDB(DATABASE);
+        site = new SyntheticSite(pages, fanOut, pageSize, latencyMillis, errorRate, SEED);
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + dbConfig.getURL(DATABASE) + "?rewriteBatchedStatements=true",
+                        "--spring.datasource.username=root",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MariaDB103Dialect",
+                        "--indexing-settings.crawl-mode=" + crawlMode,
+                        "--indexing-settings.host-initial-rate=" + hostRate,
+                        "--indexing-settings.host-max-rate=" + hostRate,
+                        "--indexing-settings.host-burst=" + (int) hostRate,
+                        "--indexing-settings.host-max-in-flight=64",
+                        "--indexing-settings.respect-crawl-delay=false",
+                        "--indexing-settings.incremental=false",
+                        "--indexing-settings.persistent-frontier=false",
+                        "--indexing-settings.sites[0].url=" + site.getUrl(),
+                        "--indexing-settings.sites[0].name=Синтетический сайт");
+        indexingService = context.getBean(IndexingService.class);
+        pageRepository = context.getBean(PageRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        innodbStatus = readInnodbStatus();
+        site.resetCounters();
+    }
+
+    @Benchmark
+    public void crawl(CrawlCounters counters) throws Exception {
+        long start = System.nanoTime();
+        indexingService.startSitesIndexing();
+        while (!indexingService.isIndexing()) {
+            Thread.sleep(POLL_MILLIS);
+        }
+        crawlNanos = System.nanoTime() - start;
+    }
+
+    private void report(CrawlCounters counters) {
+        long crawledPages = pageRepository.count();
+        double pagesPerSecond = crawledPages / (crawlNanos / 1e9);
+        Map<String, Long> written = readInnodbStatus();
+        written.replaceAll((name, value) -> value - innodbStatus.getOrDefault(name, 0L));
+        counters.pages = crawledPages;
+        counters.errorPages = site.getErrors();
+        counters.servedMegabytes = site.getBytesServed() >> 20;
+        counters.pagesPerSecond = pagesPerSecond;
+        counters.peakHeapMegabytes = peakHeapBytes() >> 20;
+        counters.innodbWrittenMegabytes = written.get("Innodb_data_written") >> 20;
+        counters.innodbRows = written.get("Innodb_rows_inserted") + written.get("Innodb_rows_updated")
+                + written.get("Innodb_rows_deleted");
+        if (pagesPerSecond < minPagesPerSecond) {
+            throw new IllegalStateException(String.format("Скорость обхода %.1f стр/с ниже порога %.1f стр/с",
+                    pagesPerSecond, minPagesPerSecond));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        if (site != null) {
+            site.close();
+        }
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    /**
+     * Сумма пиков пулов кучи — оценка сверху: пулы достигают пика не одновременно.
+     */
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private Map<String, Long> readInnodbStatus() {
+        Map<String, Long> status = new HashMap<>();
+        jdbcTemplate.query("SHOW GLOBAL STATUS WHERE Variable_name IN ('Innodb_data_written', "
+                        + "'Innodb_rows_inserted', 'Innodb_rows_updated', 'Innodb_rows_deleted')",
+                resultSet -> {
+                    status.put(resultSet.getString(1), resultSet.getLong(2));
+                });
+        return status;
+    }
+}
@@ -0,0 +1,207 @@
+package searchengine.services.indexing;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.Jsoup;
+import searchengine.services.Corpus;
+import searchengine.services.JsoupUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сгенерированный сайт на встроенном HTTP-сервере JDK для обхода без сети. Страница {@code i}
+ * ссылается на дочерние страницы {@code i * fanOut + 1 ... i * fanOut + fanOut}, так что с главной
+ * достижимы все страницы, и ещё на {@code fanOut} случайных. Текст набирается из слов корпуса.
+ * Содержимое и ошибки зависят только от номера страницы и {@code seed}, поэтому обходы сравнимы.
+ */
+public class SyntheticSite implements AutoCloseable {
+
+    private static final int SERVER_THREADS = 64;
+
+    private final int pageCount;
+
+    private final int fanOut;
+
+    private final int pageSize;
+
+    private final int latencyMillis;
+
+    private final double errorRate;
+
+    private final long seed;
+
+    private final String[] words;
+
+    private final ExecutorService executor;
+
+    private final HttpServer server;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    public SyntheticSite(int pageCount, int fanOut, int pageSize, int latencyMillis, double errorRate, long seed)
+            throws IOException {
+        this.pageCount = pageCount;
+        this.fanOut = fanOut;
+        this.pageSize = pageSize;
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.seed = seed;
+        this.words = loadWords();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(SERVER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "synthetic-site-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getAddress().getHostAddress() + ":"
+                + server.getAddress().getPort() + "/";
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    public void resetCounters() {
+        requests.set(0);
+        errors.set(0);
+        bytesServed.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            int page = parsePage(exchange.getRequestURI().getPath());
+            if (page < 0) {
+                send(exchange, 404, "Not Found");
+                return;
+            }
+            SplittableRandom random = new SplittableRandom(seed * 31 + page);
+            if (latencyMillis > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (page != 0 && random.nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                send(exchange, 500, "Internal Server Error");
+                return;
+            }
+            send(exchange, 200, renderPage(page, random));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int parsePage(String path) {
+        if (path.equals("/")) {
+            return 0;
+        } else if (!path.startsWith("/page/")) {
+            return -1;
+        }
+        try {
+            int page = Integer.parseInt(path.substring("/page/".length()));
+            return page > 0 && page < pageCount ? page : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String renderPage(int page, SplittableRandom random) {
+        StringBuilder html = new StringBuilder(pageSize + 1024);
+        html.append("<!DOCTYPE html><html lang=\"ru\"><head><meta charset=\"utf-8\"><title>")
+                .append(phrase(random, 4)).append(" — страница ").append(page).append("</title></head><body>")
+                .append("<nav><a href=\"/\">Главная</a></nav><h1>").append(phrase(random, 6)).append("</h1>");
+        int textStart = html.length();
+        while (html.length() - textStart < pageSize) {
+            html.append("<p>").append(phrase(random, 20 + random.nextInt(40))).append("</p>");
+        }
+        html.append("<ul>");
+        for (int i = 1; i <= fanOut; i++) {
+            long child = (long) page * fanOut + i;
+            if (child < pageCount) {
+                appendLink(html, (int) child, random);
+            }
+            appendLink(html, random.nextInt(pageCount), random);
+        }
+        return html.append("</ul></body></html>").toString();
+    }
+
+    private void appendLink(StringBuilder html, int page, SplittableRandom random) {
+        html.append("<li><a href=\"").append(page == 0 ? "/" : "/page/" + page).append("\">")
+                .append(phrase(random, 3)).append("</a></li>");
+    }
+
+    private String phrase(SplittableRandom random, int length) {
+        int start = random.nextInt(words.length);
+        StringBuilder phrase = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                phrase.append(' ');
+            }
+            phrase.append(words[(start + i) % words.length]);
+        }
+        return phrase.toString();
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        bytesServed.addAndGet(bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String[] loadWords() throws IOException {
+        List<String> words = new ArrayList<>();
+        for (String page : List.of(Corpus.NEWS_SMALL, Corpus.ABOUT_MEDIUM, Corpus.CATALOG_LARGE)) {
+            for (String word : JsoupUtil.documentText(Jsoup.parse(Corpus.load(page))).split("\\s+")) {
+                if (!word.isEmpty() && word.indexOf('<') < 0 && word.indexOf('&') < 0) {
+                    words.add(word);
+                }
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+}
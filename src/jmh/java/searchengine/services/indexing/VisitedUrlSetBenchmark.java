@@ -0,0 +1,64 @@
+package searchengine.services.indexing;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Дедупликация ссылок при обходе сайта: каждая страница встречается в среднем
+ * {@link #LINKS_PER_URL} раз, как ссылки из меню и соседних страниц.
+ * Вариант COPY_ON_WRITE на 1 000 000 адресов выполняется десятки минут,
+ * его можно исключить параметром {@code -p implementation=VISITED_URL_SET,CONCURRENT_HASH_SET}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VisitedUrlSetBenchmark {
+
+    private static final int LINKS_PER_URL = 4;
+
+    @Param({"10000", "100000", "1000000"})
+    private int urls;
+
+    @Param({"COPY_ON_WRITE", "CONCURRENT_HASH_SET", "VISITED_URL_SET"})
+    private String implementation;
+
+    private String[] links;
+
+    @Setup(Level.Trial)
+    public void generateLinks() {
+        Random random = new Random(42);
+        links = new String[urls * LINKS_PER_URL];
+        for (int i = 0; i < links.length; i++) {
+            int page = i < urls ? i : random.nextInt(urls);
+            links[i] = "https://www.example.ru/catalog/section-" + (page % 97) + "/item-" + page + ".html";
+        }
+    }
+
+    @Benchmark
+    public void addLinks(Blackhole blackhole) {
+        switch (implementation) {
+            case "COPY_ON_WRITE" -> addAll(new CopyOnWriteArraySet<>(), blackhole);
+            case "CONCURRENT_HASH_SET" -> addAll(Collections.newSetFromMap(new ConcurrentHashMap<>()), blackhole);
+            default -> {
+                VisitedUrlSet visitedUrls = new VisitedUrlSet(urls);
+                for (String link : links) {
+                    blackhole.consume(visitedUrls.add(link));
+                }
+            }
+        }
+    }
+
+    private void addAll(Set<String> set, Blackhole blackhole) {
+        for (String link : links) {
+            blackhole.consume(set.add(link));
+        }
+    }
+}
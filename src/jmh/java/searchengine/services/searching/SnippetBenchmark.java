@@ -0,0 +1,72 @@
+package searchengine.services.searching;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+import searchengine.model.WordOffsets;
+import searchengine.services.Corpus;
+import searchengine.services.JsoupUtil;
+import searchengine.services.LemmaFinder;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение сниппета для одной страницы выдачи: поиск совпадений и выбор окон
+ * ({@link SnippetParser}) и оформление выбранного фрагмента ({@link SnippetFormatter}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SnippetBenchmark {
+
+    private static final int SNIPPET_LENGTH = 200;
+
+    @Param({Corpus.NEWS_SMALL, Corpus.ABOUT_MEDIUM, Corpus.CATALOG_LARGE})
+    private String page;
+
+    private String text;
+
+    private int[] wordOffsets;
+
+    private LemmaFinder lemmaFinder;
+
+    private Set<String> lemmas;
+
+    private Snippet snippet;
+
+    @Setup(Level.Trial)
+    public void loadPage() throws IOException {
+        SnippetParser.setMaxSnippetLength(SNIPPET_LENGTH);
+        Snippet.setMaxSnippetLength(SNIPPET_LENGTH);
+        text = JsoupUtil.documentText(Jsoup.parse(Corpus.load(page)));
+        wordOffsets = WordOffsets.find(text);
+        lemmaFinder = LemmaFinder.getInstance(100_000);
+        lemmas = lemmaFinder.getLemmasSet(Corpus.query(page));
+        QueryWordMatcher wordMatcher = new QueryWordMatcher(lemmaFinder, lemmas);
+        snippet = new Snippet();
+        for (int i = 0; i + 1 < wordOffsets.length; i += 2) {
+            String word = text.substring(wordOffsets[i], wordOffsets[i + 1]);
+            String lemma = wordMatcher.findLemma(word);
+            if (lemma != null && !snippet.addMatch(new Match(wordOffsets[i], wordOffsets[i + 1], lemma, word))) {
+                break;
+            }
+        }
+        if (snippet.getMatches().isEmpty()) {
+            throw new IllegalStateException("Запрос не найден на странице " + page);
+        }
+    }
+
+    @Benchmark
+    public String parseSnippet() {
+        return new SnippetParser(text, wordOffsets, new QueryWordMatcher(lemmaFinder, lemmas)).getSnippet();
+    }
+
+    @Benchmark
+    public String formatSnippet() {
+        return new SnippetFormatter(snippet, text).toString();
+    }
+}
@@ -5,6 +5,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ForkJoinPoolFactoryBean;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import searchengine.services.LemmaFinder;
+import searchengine.services.indexing.CrawlExecutor;
+import searchengine.services.searching.SnippetExecutor;
 
 import java.io.IOException;
 
@@ -28,8 +30,18 @@ public class ConfigPool {
         return threadPoolTaskExecutor;
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public CrawlExecutor crawlExecutor(IndexingConfig indexingConfig) {
+        return new CrawlExecutor(indexingConfig.getFetchConcurrency(), indexingConfig.getPlatformFetchThreads());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public SnippetExecutor snippetExecutor(SearchConfig searchConfig) {
+        return new SnippetExecutor(searchConfig.getSnippetThreads(), searchConfig.getSnippetQueueCapacity());
+    }
+
     @Bean
-    public LemmaFinder lemmaFinderBean() throws IOException {
-        return LemmaFinder.getInstance();
+    public LemmaFinder lemmaFinderBean(IndexingConfig indexingConfig) throws IOException {
+        return LemmaFinder.getInstance(indexingConfig.getMorphologyCacheSize());
     }
 }
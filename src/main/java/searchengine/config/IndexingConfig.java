@@ -0,0 +1,73 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import searchengine.model.PageContentCodec;
+import searchengine.services.indexing.CrawlMode;
+
+import javax.annotation.PostConstruct;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "indexing-settings")
+public class IndexingConfig {
+
+    private CrawlMode crawlMode = CrawlMode.FORK_JOIN;
+
+    private Integer fetchConcurrency = 200;
+
+    private Integer platformFetchThreads = 16;
+
+    private Integer hostMaxInFlight = 4;
+
+    private Double hostInitialRate = 2.0;
+
+    private Double hostMaxRate = 10.0;
+
+    private Double hostMinRate = 0.2;
+
+    private Integer hostBurst = 2;
+
+    private Integer hostSlowResponseMillis = 3000;
+
+    private Integer throttleRetries = 3;
+
+    private Boolean respectCrawlDelay = true;
+
+    private Boolean incremental = false;
+
+    private Boolean persistentFrontier = false;
+
+    private String frontierDirectory = "frontier";
+
+    private Integer frontierCheckpointInterval = 10_000;
+
+    private Long lemmaDictionaryMemory = 64L * 1024 * 1024;
+
+    private Integer morphologyCacheSize = 100_000;
+
+    private Integer expectedSiteUrls = 100_000;
+
+    private Integer writerThreads = 2;
+
+    private Integer writerQueueCapacity = 1000;
+
+    private Integer writerBatchSize = 100;
+
+    private Integer writerFlushInterval = 500;
+
+    private PageContentCodec contentCodec = PageContentCodec.DEFLATE;
+
+    private Integer contentCompressionLevel = 6;
+
+    private Integer contentMigrationBatchSize = 500;
+
+    @PostConstruct
+    private void init() {
+        PageContentCodec.setDefaultCodec(contentCodec);
+        PageContentCodec.setCompressionLevel(contentCompressionLevel);
+    }
+}
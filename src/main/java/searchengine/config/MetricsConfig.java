@@ -0,0 +1,36 @@
+package searchengine.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import searchengine.services.indexing.CrawlExecutor;
+import searchengine.services.searching.SnippetExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Метрики загрузки пулов. Пул {@code threadExecutor} учитывает Spring Boot
+ * (метрики {@code executor.*} с тегом {@code name=threadExecutor}).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder executorMetrics(ForkJoinPool forkJoinPool, SnippetExecutor snippetExecutor,
+                                       CrawlExecutor crawlExecutor) {
+        return registry -> {
+            new ExecutorServiceMetrics(forkJoinPool, "forkJoinPool", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(snippetExecutor.getExecutor(), "snippetExecutor", Tags.empty())
+                    .bindTo(registry);
+            Gauge.builder("crawl.fetch.in.flight", crawlExecutor, CrawlExecutor::getInFlight)
+                    .description("Загрузки страниц в обработке")
+                    .register(registry);
+            Gauge.builder("crawl.fetch.concurrency", crawlExecutor, CrawlExecutor::getFetchConcurrency)
+                    .description("Лимит одновременных загрузок")
+                    .register(registry);
+        };
+    }
+}
@@ -4,11 +4,11 @@ import lombok.Getter;
 import lombok.Setter;
 import org.jsoup.Connection;
 import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.net.URL;
 
 @Getter
 @Setter
@@ -22,8 +22,23 @@ public class SearchBot {
 
     private Integer timeout;
 
-    public Document getJsoupDocument(String url) throws IOException {
-        return Jsoup.connect(url).userAgent(getUserAgent()).referrer(getReferrer()).timeout(getTimeout())
-                .method(Connection.Method.GET).execute().parse();
+    private Integer maxBodySize = 2 * 1024 * 1024;
+
+    public Connection.Response getJsoupResponse(String url, String etag, String lastModified) throws IOException {
+        Connection connection = Jsoup.connect(url).userAgent(getUserAgent()).referrer(getReferrer())
+                .timeout(getTimeout()).maxBodySize(getMaxBodySize()).method(Connection.Method.GET);
+        if (etag != null) {
+            connection.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            connection.header("If-Modified-Since", lastModified);
+        }
+        return connection.execute();
+    }
+
+    public String getRobotsTxt(URL url) throws IOException {
+        Connection.Response response = Jsoup.connect(url.toString()).userAgent(getUserAgent()).timeout(getTimeout())
+                .ignoreContentType(true).ignoreHttpErrors(true).method(Connection.Method.GET).execute();
+        return response.statusCode() == 200 ? response.body() : null;
     }
 }
@@ -17,6 +17,14 @@ public class SearchConfig {
 
     public Integer snippetLength;
 
+    public Integer snippetThreads = Runtime.getRuntime().availableProcessors();
+
+    public Integer snippetQueueCapacity = 100;
+
+    public Integer resultCacheSize = 1000;
+
+    public Integer resultCacheDepth = 200;
+
     @PostConstruct
     private void init() {
         SnippetParser.setMaxSnippetLength(snippetLength);
@@ -4,7 +4,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import searchengine.dto.indexing.IndexingResponse;
+import searchengine.dto.indexing.LemmaDictionaryResponse;
+import searchengine.dto.indexing.PageWriterResponse;
+import searchengine.dto.searching.SearchCacheResponse;
 import searchengine.dto.searching.SearchingResponse;
+import searchengine.dto.statistics.MorphologyCacheResponse;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.services.indexing.IndexingService;
 import searchengine.services.indexing.IndexingServiceException;
@@ -35,6 +39,11 @@ public class ApiController {
         return ResponseEntity.ok(statisticsService.getStatistics());
     }
 
+    @GetMapping("/morphologyCache")
+    public ResponseEntity<MorphologyCacheResponse> morphologyCache() {
+        return ResponseEntity.ok(statisticsService.getMorphologyCacheStatistics());
+    }
+
     @GetMapping("/startIndexing")
     public ResponseEntity<IndexingResponse> startIndexing() throws IndexingServiceException {
         return ResponseEntity.ok(indexingService.startSitesIndexing());
@@ -51,6 +60,21 @@ public class ApiController {
         return ResponseEntity.ok(indexingService.pageIndexing(url));
     }
 
+    @GetMapping("/lemmaDictionaries")
+    public ResponseEntity<LemmaDictionaryResponse> lemmaDictionaries() {
+        return ResponseEntity.ok(indexingService.getLemmaDictionaryStatistics());
+    }
+
+    @GetMapping("/pageWriter")
+    public ResponseEntity<PageWriterResponse> pageWriter() {
+        return ResponseEntity.ok(indexingService.getPageWriterStatistics());
+    }
+
+    @GetMapping("/searchCache")
+    public ResponseEntity<SearchCacheResponse> searchCache() {
+        return ResponseEntity.ok(searchingService.getCacheStatistics());
+    }
+
     @GetMapping("/search")
     public ResponseEntity<SearchingResponse> search(@RequestParam(name = "query") String query,
                                                     @RequestParam(name = "site", required = false) String site,
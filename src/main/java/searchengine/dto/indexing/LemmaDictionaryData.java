@@ -0,0 +1,21 @@
+package searchengine.dto.indexing;
+
+import lombok.Data;
+
+@Data
+public class LemmaDictionaryData {
+
+    private String siteName;
+
+    private int size;
+
+    private long memory;
+
+    private long maxMemory;
+
+    private long hits;
+
+    private long misses;
+
+    private double hitRate;
+}
@@ -0,0 +1,15 @@
+package searchengine.dto.indexing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class LemmaDictionaryResponse {
+
+    private boolean result;
+
+    private List<LemmaDictionaryData> dictionaries;
+}
@@ -0,0 +1,25 @@
+package searchengine.dto.indexing;
+
+import lombok.Data;
+
+@Data
+public class PageWriterData {
+
+    private int queueSize;
+
+    private int queueCapacity;
+
+    private long writtenPages;
+
+    private long failedPages;
+
+    private long flushes;
+
+    private double averageBatchSize;
+
+    private double averageFlushMillis;
+
+    private double maxFlushMillis;
+
+    private double lastFlushMillis;
+}
@@ -0,0 +1,13 @@
+package searchengine.dto.indexing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PageWriterResponse {
+
+    private boolean result;
+
+    private PageWriterData writer;
+}
@@ -0,0 +1,21 @@
+package searchengine.dto.searching;
+
+import lombok.Data;
+
+@Data
+public class SearchCacheData {
+
+    private int size;
+
+    private int maxSize;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long invalidations;
+
+    private double hitRate;
+}
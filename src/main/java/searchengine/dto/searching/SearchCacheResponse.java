@@ -0,0 +1,13 @@
+package searchengine.dto.searching;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SearchCacheResponse {
+
+    private boolean result;
+
+    private SearchCacheData cache;
+}
@@ -0,0 +1,19 @@
+package searchengine.dto.statistics;
+
+import lombok.Data;
+
+@Data
+public class MorphologyCacheData {
+
+    private int size;
+
+    private int maxSize;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private double hitRate;
+}
@@ -0,0 +1,13 @@
+package searchengine.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MorphologyCacheResponse {
+
+    private boolean result;
+
+    private MorphologyCacheData cache;
+}
@@ -0,0 +1,163 @@
+package searchengine.model;
+
+import net.jpountz.lz4.LZ4Factory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Сжатие содержимого страницы. Первый байт сохранённых данных — идентификатор кодека,
+ * поэтому страницы, записанные разными кодеками, читаются вместе.
+ */
+public enum PageContentCodec {
+
+    NONE(0) {
+        @Override
+        protected byte[] compress(byte[] raw) {
+            return raw;
+        }
+
+        @Override
+        protected byte[] decompress(byte[] data, int offset) {
+            return Arrays.copyOfRange(data, offset, data.length);
+        }
+    },
+
+    DEFLATE(1) {
+        @Override
+        protected byte[] compress(byte[] raw) {
+            Deflater deflater = new Deflater(compressionLevel);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        protected byte[] decompress(byte[] data, int offset) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data, offset, data.length - offset);
+                ByteArrayOutputStream out = new ByteArrayOutputStream((data.length - offset) * 4);
+                byte[] buffer = new byte[8192];
+                while (!inflater.finished()) {
+                    int length = inflater.inflate(buffer);
+                    if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IllegalStateException("Повреждённое содержимое страницы");
+                    }
+                    out.write(buffer, 0, length);
+                }
+                return out.toByteArray();
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Повреждённое содержимое страницы", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    },
+
+    LZ4(2) {
+        @Override
+        protected byte[] compress(byte[] raw) {
+            byte[] compressed = LZ4Factory.fastestInstance().fastCompressor().compress(raw);
+            return ByteBuffer.allocate(Integer.BYTES + compressed.length).putInt(raw.length).put(compressed).array();
+        }
+
+        @Override
+        protected byte[] decompress(byte[] data, int offset) {
+            int length = ByteBuffer.wrap(data, offset, Integer.BYTES).getInt();
+            byte[] raw = new byte[length];
+            LZ4Factory.fastestInstance().fastDecompressor().decompress(data, offset + Integer.BYTES, raw, 0, length);
+            return raw;
+        }
+    };
+
+    private static volatile PageContentCodec defaultCodec = DEFLATE;
+
+    private static volatile int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    private final byte id;
+
+    PageContentCodec(int id) {
+        this.id = (byte) id;
+    }
+
+    public static void setDefaultCodec(PageContentCodec codec) {
+        defaultCodec = codec;
+    }
+
+    public static void setCompressionLevel(int level) {
+        compressionLevel = level;
+    }
+
+    public static byte[] encode(String content) {
+        return encode(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] encode(byte[] content) {
+        PageContentCodec codec = defaultCodec;
+        byte[] compressed = codec.compress(content);
+        byte[] data = new byte[compressed.length + 1];
+        data[0] = codec.id;
+        System.arraycopy(compressed, 0, data, 1, compressed.length);
+        return data;
+    }
+
+    public static byte[] encodeLinks(List<String> links) {
+        return encode(String.join("\n", links));
+    }
+
+    public static List<String> decodeLinks(byte[] data) {
+        String links = decode(data);
+        return links.isEmpty() ? List.of() : List.of(links.split("\n"));
+    }
+
+    public static String decode(byte[] data) {
+        return decode(data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Декодирует содержимое в кодировке с именем {@code charsetName}; без имени или с неизвестным
+     * именем содержимое считается записанным в UTF-8.
+     */
+    public static String decode(byte[] data, String charsetName) {
+        Charset charset;
+        try {
+            charset = charsetName == null ? StandardCharsets.UTF_8 : Charset.forName(charsetName);
+        } catch (IllegalArgumentException e) {
+            charset = StandardCharsets.UTF_8;
+        }
+        return decode(data, charset);
+    }
+
+    public static String decode(byte[] data, Charset charset) {
+        if (data.length == 0) {
+            return "";
+        }
+        for (PageContentCodec codec : values()) {
+            if (codec.id == data[0]) {
+                return new String(codec.decompress(data, 1), charset);
+            }
+        }
+        throw new IllegalStateException("Неизвестный кодек содержимого страницы: " + data[0]);
+    }
+
+    protected abstract byte[] compress(byte[] raw);
+
+    protected abstract byte[] decompress(byte[] data, int offset);
+}
@@ -1,5 +1,6 @@
 package searchengine.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -31,9 +32,93 @@ public class PageEntity {
     @Column(nullable = false)
     private Integer code;
 
-    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
-    private String content;
+    /**
+     * Загружается при первом обращении (нужно bytecode enhancement, см. pom.xml): поиск и запись
+     * страниц работают с текстом, а исходный HTML читается редко.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "content_data", columnDefinition = "MEDIUMBLOB")
+    private byte[] contentData;
+
+    @Column(name = "content_charset", columnDefinition = "VARCHAR(32)")
+    private String contentCharset;
+
+    @Column(columnDefinition = "TEXT")
+    private String title;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "text_data", columnDefinition = "MEDIUMBLOB")
+    private byte[] textData;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "word_offsets", columnDefinition = "MEDIUMBLOB")
+    private byte[] wordOffsets;
+
+    /**
+     * Абсолютные адреса ссылок страницы через перевод строки: при ответе 304 обход берёт ссылки
+     * отсюда, не читая и не разбирая HTML.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "links_data", columnDefinition = "MEDIUMBLOB")
+    private byte[] linksData;
+
+    @Column(columnDefinition = "VARCHAR(255)")
+    private String etag;
+
+    @Column(name = "last_modified", columnDefinition = "VARCHAR(64)")
+    private String lastModified;
+
+    @Column(name = "content_hash", columnDefinition = "CHAR(64)")
+    private String contentHash;
 
     @OneToMany(mappedBy = "page", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private List<IndexEntity> indexes;
+
+    /**
+     * Содержимое, декодированное в кодировке, с которой оно сохранено; страницы без кодировки
+     * записаны в UTF-8.
+     */
+    public String getContent() {
+        return contentData == null ? null : PageContentCodec.decode(contentData, contentCharset);
+    }
+
+    public void setContent(String content) {
+        contentData = content == null ? null : PageContentCodec.encode(content);
+        contentCharset = null;
+    }
+
+    /**
+     * Исходные байты тела ответа и их кодировка.
+     */
+    public void setContentBytes(byte[] content, String charset) {
+        contentData = content == null ? null : PageContentCodec.encode(content);
+        contentCharset = charset;
+    }
+
+    public String getText() {
+        return textData == null ? null : PageContentCodec.decode(textData);
+    }
+
+    public void setText(String text) {
+        textData = text == null ? null : PageContentCodec.encode(text);
+        wordOffsets = text == null ? null : WordOffsets.encode(text);
+    }
+
+    public List<String> getLinks() {
+        return linksData == null ? null : PageContentCodec.decodeLinks(linksData);
+    }
+
+    public void setLinks(List<String> links) {
+        linksData = links == null ? null : PageContentCodec.encodeLinks(links);
+    }
+
+    public int[] getWordOffsets() {
+        return wordOffsets == null ? null : WordOffsets.decode(wordOffsets);
+    }
 }
@@ -0,0 +1,8 @@
+package searchengine.model;
+
+public interface PageRelevance {
+
+    Long getPageId();
+
+    Double getRelevance();
+}
@@ -0,0 +1,14 @@
+package searchengine.model;
+
+public interface PageVersion {
+
+    Long getId();
+
+    String getPath();
+
+    String getEtag();
+
+    String getLastModified();
+
+    String getContentHash();
+}
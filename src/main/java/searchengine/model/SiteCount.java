@@ -0,0 +1,8 @@
+package searchengine.model;
+
+public interface SiteCount {
+
+    Long getSiteId();
+
+    Long getCount();
+}
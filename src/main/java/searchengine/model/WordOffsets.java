@@ -0,0 +1,71 @@
+package searchengine.model;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Границы русских слов в тексте страницы: пары (начало, конец) хранятся как varint-разности,
+ * поэтому при поиске текст не приходится заново разбирать регулярным выражением.
+ */
+public class WordOffsets {
+
+    public static final Pattern WORD_PATTERN = Pattern.compile("[А-Яа-я]+");
+
+    public static int[] find(String text) {
+        int[] offsets = new int[16];
+        int size = 0;
+        Matcher matcher = WORD_PATTERN.matcher(text);
+        while (matcher.find()) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = matcher.start();
+            offsets[size++] = matcher.end();
+        }
+        return Arrays.copyOf(offsets, size);
+    }
+
+    public static byte[] encode(String text) {
+        int[] offsets = find(text);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(offsets.length * 2);
+        int previous = 0;
+        for (int offset : offsets) {
+            writeVarInt(out, offset - previous);
+            previous = offset;
+        }
+        return out.toByteArray();
+    }
+
+    public static int[] decode(byte[] data) {
+        int[] offsets = new int[Math.max(16, data.length)];
+        int size = 0;
+        int previous = 0;
+        int position = 0;
+        while (position < data.length) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            previous += value;
+            offsets[size++] = previous;
+        }
+        return Arrays.copyOf(offsets, size);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -1,15 +1,25 @@
 package searchengine.model.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import searchengine.model.IndexEntity;
-import searchengine.model.LemmaEntity;
-import searchengine.model.PageEntity;
+import searchengine.model.PageRelevance;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface IndexRepository extends JpaRepository<IndexEntity, Long> {
+public interface IndexRepository extends JpaRepository<IndexEntity, Long>, IndexRepositoryCustom {
 
-    List<IndexEntity> findAllByPageAndLemmaIn(PageEntity page, Iterable<LemmaEntity> lemmaEntities);
+    @Query("select i.page.id as pageId, sum(i.rank) as relevance from IndexEntity i " +
+            "where i.lemma.id in :lemmaIds group by i.page.id having count(i) = :lemmaCount")
+    List<PageRelevance> findRelevanceByLemmaIds(@Param("lemmaIds") Collection<Long> lemmaIds,
+                                                @Param("lemmaCount") long lemmaCount);
+
+    @Modifying
+    @Query(value = "DELETE FROM `index` WHERE page_id IN (:pageIds)", nativeQuery = true)
+    void deleteAllByPageIds(@Param("pageIds") Collection<Long> pageIds);
 }
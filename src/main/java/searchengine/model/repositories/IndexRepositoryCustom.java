@@ -0,0 +1,16 @@
+package searchengine.model.repositories;
+
+import java.util.Map;
+
+public interface IndexRepositoryCustom {
+
+    void insertIndexes(Map<Long, Map<Long, Float>> lemmaRanksByPage);
+
+    void forEachIndex(IndexConsumer consumer);
+
+    @FunctionalInterface
+    interface IndexConsumer {
+
+        void accept(long lemmaId, long pageId, float rank);
+    }
+}
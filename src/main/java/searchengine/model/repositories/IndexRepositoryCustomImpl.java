@@ -0,0 +1,40 @@
+package searchengine.model.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class IndexRepositoryCustomImpl implements IndexRepositoryCustom {
+
+    private static final String INSERT_INDEX_SQL = "INSERT INTO `index` (page_id, lemma_id, `rank`) VALUES (?, ?, ?)";
+
+    private static final String SELECT_INDEXES_SQL = "SELECT lemma_id, page_id, `rank` FROM `index`";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertIndexes(Map<Long, Map<Long, Float>> lemmaRanksByPage) {
+        List<Object[]> rows = new ArrayList<>();
+        lemmaRanksByPage.forEach((pageId, lemmaRanks) ->
+                lemmaRanks.forEach((lemmaId, rank) -> rows.add(new Object[]{pageId, lemmaId, rank})));
+        jdbcTemplate.batchUpdate(INSERT_INDEX_SQL, rows);
+    }
+
+    @Override
+    public void forEachIndex(IndexConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_INDEXES_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, (RowCallbackHandler) resultSet ->
+                consumer.accept(resultSet.getLong(1), resultSet.getLong(2), resultSet.getFloat(3)));
+    }
+}
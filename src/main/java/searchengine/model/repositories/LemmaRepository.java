@@ -1,14 +1,19 @@
 package searchengine.model.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import searchengine.model.LemmaEntity;
+import searchengine.model.SiteCount;
 import searchengine.model.SiteEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface LemmaRepository extends JpaRepository<LemmaEntity, Long> {
+public interface LemmaRepository extends JpaRepository<LemmaEntity, Long>, LemmaRepositoryCustom {
 
     LemmaEntity findBySiteIdAndLemma(Long siteId, String lemma);
 
@@ -16,4 +21,19 @@ public interface LemmaRepository extends JpaRepository<LemmaEntity, Long> {
 
     List<LemmaEntity> findAllByLemmaInAndSiteEqualsOrderByFrequencyAsc(Iterable<String> string, SiteEntity site);
 
+    @Query("select l.site.id as siteId, count(l) as count from LemmaEntity l group by l.site.id")
+    List<SiteCount> countBySite();
+
+    @Modifying
+    @Query(value = "UPDATE lemma l JOIN (SELECT lemma_id, COUNT(*) AS pages FROM `index` " +
+            "WHERE page_id IN (:pageIds) GROUP BY lemma_id) i ON i.lemma_id = l.id " +
+            "SET l.frequency = l.frequency - i.pages", nativeQuery = true)
+    void decrementFrequenciesByPageIds(@Param("pageIds") Collection<Long> pageIds);
+
+    @Query(value = "SELECT lemma FROM lemma WHERE site_id = :siteId AND frequency <= 0 FOR UPDATE", nativeQuery = true)
+    List<String> findUnusedBySiteId(@Param("siteId") Long siteId);
+
+    @Modifying
+    @Query(value = "DELETE FROM lemma WHERE site_id = :siteId AND frequency <= 0", nativeQuery = true)
+    void deleteUnusedBySiteId(@Param("siteId") Long siteId);
 }
@@ -0,0 +1,13 @@
+package searchengine.model.repositories;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface LemmaRepositoryCustom {
+
+    void upsertLemmas(Long siteId, Map<String, Integer> frequencyIncrements);
+
+    void incrementFrequencies(Map<Long, Integer> frequencyIncrements);
+
+    Map<String, Long> findLemmaIds(Long siteId, Collection<String> lemmas);
+}
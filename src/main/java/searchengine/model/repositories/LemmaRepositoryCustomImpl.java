@@ -0,0 +1,69 @@
+package searchengine.model.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.*;
+
+@RequiredArgsConstructor
+public class LemmaRepositoryCustomImpl implements LemmaRepositoryCustom {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String UPSERT_LEMMA_SQL = "INSERT INTO lemma (site_id, lemma, frequency) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE frequency = frequency + VALUES(frequency)";
+
+    private static final String INCREMENT_FREQUENCY_SQL = "UPDATE lemma SET frequency = frequency + :increment " +
+            "WHERE id IN (:ids)";
+
+    private static final String SELECT_LEMMA_IDS_SQL = "SELECT id, lemma FROM lemma " +
+            "WHERE site_id = :siteId AND lemma IN (:lemmas)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public void upsertLemmas(Long siteId, Map<String, Integer> frequencyIncrements) {
+        jdbcTemplate.batchUpdate(UPSERT_LEMMA_SQL, frequencyIncrements.entrySet(), frequencyIncrements.size(),
+                (statement, entry) -> {
+                    statement.setLong(1, siteId);
+                    statement.setString(2, entry.getKey());
+                    statement.setInt(3, entry.getValue());
+                });
+    }
+
+    @Override
+    public void incrementFrequencies(Map<Long, Integer> frequencyIncrements) {
+        Map<Integer, List<Long>> idsByIncrement = new TreeMap<>();
+        frequencyIncrements.forEach((id, increment) ->
+                idsByIncrement.computeIfAbsent(increment, key -> new ArrayList<>()).add(id));
+        idsByIncrement.forEach((increment, ids) -> {
+            Collections.sort(ids);
+            for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource()
+                        .addValue("increment", increment)
+                        .addValue("ids", ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())));
+                namedParameterJdbcTemplate.update(INCREMENT_FREQUENCY_SQL, parameters);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, Long> findLemmaIds(Long siteId, Collection<String> lemmas) {
+        Map<String, Long> lemmaIds = new HashMap<>(lemmas.size() * 2);
+        List<String> lemmaList = new ArrayList<>(lemmas);
+        for (int from = 0; from < lemmaList.size(); from += CHUNK_SIZE) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("siteId", siteId)
+                    .addValue("lemmas", lemmaList.subList(from, Math.min(from + CHUNK_SIZE, lemmaList.size())));
+            namedParameterJdbcTemplate.query(SELECT_LEMMA_IDS_SQL, parameters,
+                    resultSet -> {
+                        lemmaIds.put(resultSet.getString("lemma"), resultSet.getLong("id"));
+                    });
+        }
+        return lemmaIds;
+    }
+}
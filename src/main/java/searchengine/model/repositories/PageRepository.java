@@ -1,13 +1,37 @@
 package searchengine.model.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.PageEntity;
+import searchengine.model.PageVersion;
+import searchengine.model.SiteCount;
+
+import java.util.List;
 
 @Repository
-public interface PageRepository extends JpaRepository<PageEntity, Long> {
+public interface PageRepository extends JpaRepository<PageEntity, Long>, PageRepositoryCustom {
 
     boolean existsByPath(String path);
 
     PageEntity findByPath(String path);
+
+    @Query("select p.id as id, p.path as path, p.etag as etag, p.lastModified as lastModified, " +
+            "p.contentHash as contentHash from PageEntity p where p.site.id = :siteId")
+    List<PageVersion> findVersionsBySiteId(@Param("siteId") Long siteId);
+
+    @Query("select p.site.id as siteId, count(p) as count from PageEntity p group by p.site.id")
+    List<SiteCount> countBySite();
+
+    @Query("select p.id from PageEntity p where p.site.name = :siteName")
+    List<Long> findIdsBySiteName(@Param("siteName") String siteName);
+
+    @Transactional
+    @Modifying
+    @Query("update PageEntity p set p.etag = :etag, p.lastModified = :lastModified where p.id = :id")
+    void updateValidators(@Param("id") Long id, @Param("etag") String etag,
+                          @Param("lastModified") String lastModified);
 }
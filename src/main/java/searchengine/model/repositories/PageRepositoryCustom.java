@@ -0,0 +1,20 @@
+package searchengine.model.repositories;
+
+import java.util.List;
+
+public interface PageRepositoryCustom {
+
+    boolean hasLegacyContent();
+
+    long migrateLegacyContent(int batchSize);
+
+    /**
+     * Декодированное содержимое страницы без загрузки остальных колонок; {@code null}, если страницы нет.
+     */
+    String findContent(Long pageId);
+
+    /**
+     * Сохранённые ссылки страницы; {@code null}, если страницы нет или она записана без ссылок.
+     */
+    List<String> findLinks(Long pageId);
+}
@@ -0,0 +1,74 @@
+package searchengine.model.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import searchengine.model.PageContentCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class PageRepositoryCustomImpl implements PageRepositoryCustom {
+
+    private static final String LEGACY_CONTENT_SQL = "SELECT COUNT(*) FROM information_schema.columns " +
+            "WHERE table_schema = DATABASE() AND table_name = 'page' AND column_name = 'content'";
+
+    private static final String NULLABLE_LEGACY_CONTENT_SQL = "ALTER TABLE page MODIFY content MEDIUMTEXT NULL";
+
+    private static final String SELECT_LEGACY_CONTENT_SQL = "SELECT id, content FROM page " +
+            "WHERE id > ? AND content IS NOT NULL ORDER BY id LIMIT ?";
+
+    private static final String UPDATE_CONTENT_SQL = "UPDATE page SET content_data = ?, content = NULL WHERE id = ?";
+
+    private static final String DROP_LEGACY_CONTENT_SQL = "ALTER TABLE page DROP COLUMN content";
+
+    private static final String SELECT_LINKS_SQL = "SELECT links_data FROM page WHERE id = ?";
+
+    private static final String SELECT_CONTENT_SQL = "SELECT content_data, content_charset FROM page WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean hasLegacyContent() {
+        Integer columns = jdbcTemplate.queryForObject(LEGACY_CONTENT_SQL, Integer.class);
+        return columns != null && columns > 0;
+    }
+
+    @Override
+    public long migrateLegacyContent(int batchSize) {
+        jdbcTemplate.execute(NULLABLE_LEGACY_CONTENT_SQL);
+        long migrated = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            jdbcTemplate.query(SELECT_LEGACY_CONTENT_SQL, resultSet -> {
+                rows.add(new Object[]{PageContentCodec.encode(resultSet.getString("content")),
+                        resultSet.getLong("id")});
+            }, lastId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            jdbcTemplate.batchUpdate(UPDATE_CONTENT_SQL, rows);
+            migrated += rows.size();
+            lastId = (Long) rows.get(rows.size() - 1)[1];
+        }
+        jdbcTemplate.execute(DROP_LEGACY_CONTENT_SQL);
+        return migrated;
+    }
+
+    @Override
+    public String findContent(Long pageId) {
+        List<String> contents = jdbcTemplate.query(SELECT_CONTENT_SQL, (resultSet, rowNumber) -> {
+            byte[] data = resultSet.getBytes("content_data");
+            return data == null ? "" : PageContentCodec.decode(data, resultSet.getString("content_charset"));
+        }, pageId);
+        return contents.isEmpty() ? null : contents.get(0);
+    }
+
+    @Override
+    public List<String> findLinks(Long pageId) {
+        List<byte[]> links = jdbcTemplate.query(SELECT_LINKS_SQL,
+                (resultSet, rowNumber) -> resultSet.getBytes("links_data"), pageId);
+        return links.isEmpty() || links.get(0) == null ? null : PageContentCodec.decodeLinks(links.get(0));
+    }
+}
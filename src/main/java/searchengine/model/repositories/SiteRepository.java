@@ -1,17 +1,20 @@
 package searchengine.model.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.SiteEntity;
 
 @Repository
-public interface SiteRepository extends JpaRepository<SiteEntity, Long> {
-
-    @Transactional
-    void deleteAllByName(String name);
+public interface SiteRepository extends JpaRepository<SiteEntity, Long>, SiteRepositoryCustom {
 
     SiteEntity findByName(String name);
 
     SiteEntity findByUrlEquals(String url);
+
+    @Modifying
+    @Query("update SiteEntity s set s.statusTime = current_timestamp where s.id = :id")
+    void updateStatusTime(@Param("id") Long id);
 }
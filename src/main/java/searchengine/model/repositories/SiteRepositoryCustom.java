@@ -0,0 +1,6 @@
+package searchengine.model.repositories;
+
+public interface SiteRepositoryCustom {
+
+    void deleteSiteData(String siteName);
+}
@@ -0,0 +1,29 @@
+package searchengine.model.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+public class SiteRepositoryCustomImpl implements SiteRepositoryCustom {
+
+    private static final String DELETE_INDEXES_SQL = "DELETE i FROM `index` i JOIN page p ON p.id = i.page_id " +
+            "JOIN site s ON s.id = p.site_id WHERE s.name = ?";
+
+    private static final String DELETE_PAGES_SQL = "DELETE p FROM page p JOIN site s ON s.id = p.site_id " +
+            "WHERE s.name = ?";
+
+    private static final String DELETE_LEMMAS_SQL = "DELETE l FROM lemma l JOIN site s ON s.id = l.site_id " +
+            "WHERE s.name = ?";
+
+    private static final String DELETE_SITES_SQL = "DELETE FROM site WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void deleteSiteData(String siteName) {
+        jdbcTemplate.update(DELETE_INDEXES_SQL, siteName);
+        jdbcTemplate.update(DELETE_PAGES_SQL, siteName);
+        jdbcTemplate.update(DELETE_LEMMAS_SQL, siteName);
+        jdbcTemplate.update(DELETE_SITES_SQL, siteName);
+    }
+}
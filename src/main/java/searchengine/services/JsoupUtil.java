@@ -1,12 +1,36 @@
 package searchengine.services;
 
 import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import java.util.List;
+import java.util.StringJoiner;
+
 public class JsoupUtil {
 
+    private static final String CONTENT_TAGS = "h1,h2,h3,h4,h5,h6,p,ul,ol,span";
+
     public static Elements documentContentSelector(Document document) {
-        return document.getAllElements().not("nav,aside,header,footer,[class*=menu]")
-                .select("h1,h2,h3,h4,h5,h6,p,ul,ol,span");
+        return document.select(CONTENT_TAGS);
+    }
+
+    public static String documentText(Document document) {
+        return String.join("\n", documentContentSelector(document).eachText());
+    }
+
+    /**
+     * Текст содержимого и абсолютные адреса ссылок страницы за один обход документа.
+     */
+    public static String documentText(Document document, List<String> links) {
+        StringJoiner text = new StringJoiner("\n");
+        for (Element element : document.select(CONTENT_TAGS + ",a")) {
+            if (element.normalName().equals("a")) {
+                links.add(element.attr("abs:href"));
+            } else if (element.hasText()) {
+                text.add(element.text());
+            }
+        }
+        return text.toString();
     }
 }
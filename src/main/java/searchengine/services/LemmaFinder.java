@@ -2,6 +2,8 @@ package searchengine.services;
 
 import org.apache.lucene.morphology.LuceneMorphology;
 import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
+import searchengine.dto.statistics.MorphologyCacheData;
+import searchengine.services.WordFormCache.WordForm;
 
 import java.io.IOException;
 import java.util.*;
@@ -14,63 +16,66 @@ public class LemmaFinder {
 
     private static final String[] particlesNames = new String[]{"МЕЖД", "ПРЕДЛ", "СОЮЗ"};
 
-    private LemmaFinder(LuceneMorphology luceneMorphology) {
+    private final WordFormCache wordFormCache;
+
+    private LemmaFinder(LuceneMorphology luceneMorphology, int morphologyCacheSize) {
         this.luceneMorphology = luceneMorphology;
+        this.wordFormCache = new WordFormCache(morphologyCacheSize);
     }
 
-    public static LemmaFinder getInstance() throws IOException {
+    public static LemmaFinder getInstance(int morphologyCacheSize) throws IOException {
         LuceneMorphology morphology = new RussianLuceneMorphology();
-        return new LemmaFinder(morphology);
+        return new LemmaFinder(morphology, morphologyCacheSize);
     }
 
-    public Map<String, Integer> collectLemmas(String text) {
-        String[] words = arrayContainsRussianWords(text);
+    public Map<String, Integer> collectLemmas(CharSequence text) {
         HashMap<String, Integer> lemmas = new HashMap<>();
-        for (String word : words) {
-            if (word.isBlank()) {
-                continue;
-            }
-            List<String> wordBaseForms = luceneMorphology.getMorphInfo(word);
-            if (anyWordBaseBelongToParticle(wordBaseForms)) {
-                continue;
-            }
-            List<String> normalForms = luceneMorphology.getNormalForms(word);
-            if (normalForms.isEmpty()) {
-                continue;
-            }
-            String normalWord = normalForms.get(0);
-            if (lemmas.containsKey(normalWord)) {
-                lemmas.put(normalWord, lemmas.get(normalWord) + 1);
-            } else {
-                lemmas.put(normalWord, 1);
+        RussianWordTokenizer.forEachWord(text, word -> {
+            WordForm wordForm = getWordForm(word);
+            if (!wordForm.isParticle() && !wordForm.getNormalForms().isEmpty()) {
+                lemmas.merge(wordForm.getNormalForms().get(0), 1, Integer::sum);
             }
-        }
+        });
         return lemmas;
     }
 
-    public Set<String> getLemmasSet(String text) {
-        String[] textArray = arrayContainsRussianWords(text);
+    public Set<String> getLemmasSet(CharSequence text) {
         Set<String> lemmaSet = new HashSet<>();
-        for (String word : textArray) {
-            if (!word.isEmpty() && isCorrectWordForm(word)) {
-                List<String> wordBaseForms = luceneMorphology.getMorphInfo(word);
-                if (anyWordBaseBelongToParticle(wordBaseForms)) {
-                    continue;
-                }
-                lemmaSet.addAll(luceneMorphology.getNormalForms(word));
+        RussianWordTokenizer.forEachWord(text, word -> {
+            WordForm wordForm = getWordForm(word);
+            if (wordForm.isCorrectForm() && !wordForm.isParticle()) {
+                lemmaSet.addAll(wordForm.getNormalForms());
             }
-        }
+        });
         return lemmaSet;
     }
 
-    public Boolean isLemmaApplyWord(String lemma, String word) {
-        return !word.isEmpty() && isCorrectWordForm(word)
-                && !anyWordBaseBelongToParticle(luceneMorphology.getMorphInfo(word))
-                && luceneMorphology.getNormalForms(word).contains(lemma);
+    public String findLemma(String word, Set<String> lemmas) {
+        if (word.isEmpty()) {
+            return null;
+        }
+        WordForm wordForm = getWordForm(word);
+        if (!wordForm.isCorrectForm() || wordForm.isParticle()) {
+            return null;
+        }
+        return wordForm.getNormalForms().stream().filter(lemmas::contains).findFirst().orElse(null);
+    }
+
+    public MorphologyCacheData getMorphologyCacheStatistics() {
+        return wordFormCache.getStatistics();
+    }
+
+    private WordForm getWordForm(String word) {
+        return wordFormCache.get(word, this::parseWordForm);
     }
 
-    private boolean isCorrectWordForm(String word) {
+    private WordForm parseWordForm(String word) {
         List<String> wordInfo = luceneMorphology.getMorphInfo(word);
+        return new WordForm(anyWordBaseBelongToParticle(wordInfo), isCorrectWordForm(wordInfo),
+                List.copyOf(luceneMorphology.getNormalForms(word)));
+    }
+
+    private boolean isCorrectWordForm(List<String> wordInfo) {
         for (String morphInfo : wordInfo) {
             if (morphInfo.matches(WORD_TYPE_REGEX)) {
                 return false;
@@ -84,15 +89,12 @@ public class LemmaFinder {
     }
 
     private boolean hasParticleProperty(String wordBase) {
+        int grammemes = wordBase.indexOf('|') + 1;
         for (String property : particlesNames) {
-            if (wordBase.toUpperCase().contains(property)) {
+            if (wordBase.indexOf(property, grammemes) >= 0) {
                 return true;
             }
         }
         return false;
     }
-
-    private String[] arrayContainsRussianWords(String text) {
-        return text.toLowerCase(Locale.ROOT).replaceAll("([^а-я\\s])", " ").trim().split("\\s+");
-    }
 }
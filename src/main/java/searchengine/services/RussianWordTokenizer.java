@@ -0,0 +1,36 @@
+package searchengine.services;
+
+import java.util.function.Consumer;
+
+/**
+ * Разбивает текст на русские слова за один проход: слово — непрерывная последовательность
+ * букв а-я (без учёта регистра), остальные символы разделяют слова. Слова передаются
+ * в нижнем регистре; копия всего текста не создаётся.
+ */
+public class RussianWordTokenizer {
+
+    private static final int CASE_SHIFT = 'а' - 'А';
+
+    public static void forEachWord(CharSequence text, Consumer<String> consumer) {
+        char[] word = new char[32];
+        int length = 0;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (c >= 'А' && c <= 'Я') {
+                c += CASE_SHIFT;
+            } else if (c < 'а' || c > 'я') {
+                if (length > 0) {
+                    consumer.accept(new String(word, 0, length));
+                    length = 0;
+                }
+                continue;
+            }
+            if (length == word.length) {
+                char[] grown = new char[length * 2];
+                System.arraycopy(word, 0, grown, 0, length);
+                word = grown;
+            }
+            word[length++] = c;
+        }
+    }
+}
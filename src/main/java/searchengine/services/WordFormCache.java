@@ -0,0 +1,110 @@
+package searchengine.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import searchengine.dto.statistics.MorphologyCacheData;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Ограниченный кэш морфологического разбора словоформ. Разделён на сегменты с LRU-вытеснением
+ * в каждом, чтобы потоки индексации и поиска редко ждали друг друга.
+ */
+public class WordFormCache {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public WordFormCache(int maxSize) {
+        this.maxSize = Math.max(maxSize, 0);
+        int stripeCapacity = (this.maxSize + STRIPES - 1) / STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    public WordForm get(String word, Function<String, WordForm> parser) {
+        if (maxSize == 0) {
+            misses.increment();
+            return parser.apply(word);
+        }
+        int hash = word.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        WordForm wordForm;
+        synchronized (stripe) {
+            wordForm = stripe.get(word);
+        }
+        if (wordForm != null) {
+            hits.increment();
+            return wordForm;
+        }
+        misses.increment();
+        wordForm = parser.apply(word);
+        synchronized (stripe) {
+            stripe.put(word, wordForm);
+        }
+        return wordForm;
+    }
+
+    public MorphologyCacheData getStatistics() {
+        MorphologyCacheData data = new MorphologyCacheData();
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        long hitCount = hits.sum();
+        long requestCount = hitCount + misses.sum();
+        data.setSize(size);
+        data.setMaxSize(maxSize);
+        data.setHits(hitCount);
+        data.setMisses(misses.sum());
+        data.setEvictions(evictions.sum());
+        data.setHitRate(requestCount == 0 ? 0 : (double) hitCount / requestCount);
+        return data;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class WordForm {
+
+        private final boolean particle;
+
+        private final boolean correctForm;
+
+        private final List<String> normalForms;
+    }
+
+    private class Stripe extends LinkedHashMap<String, WordForm> {
+
+        private final int capacity;
+
+        private Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WordForm> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
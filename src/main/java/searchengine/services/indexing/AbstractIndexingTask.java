@@ -1,8 +1,13 @@
 package searchengine.services.indexing;
 
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
 
 public abstract class AbstractIndexingTask extends RecursiveTask<Boolean> {
 
+    public Boolean invokeIn(ForkJoinPool forkJoinPool) {
+        return forkJoinPool.invoke(this);
+    }
+
     public abstract void stopCompute();
 }
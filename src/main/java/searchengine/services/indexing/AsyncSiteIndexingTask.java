@@ -0,0 +1,109 @@
+package searchengine.services.indexing;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Обход сайта через очередь {@link CrawlFrontier}: поток, запустивший задачу, раздаёт
+ * адреса из очереди на загрузку в {@link CrawlExecutor}, а лемматизация выполняется
+ * в ограниченном {@link ForkJoinPool}. Используется в режиме {@link CrawlMode#VIRTUAL_THREADS}
+ * и при хранении очереди на диске.
+ */
+public class AsyncSiteIndexingTask extends AbstractIndexingTask {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final SiteCrawlContext context;
+    private final CrawlExecutor crawlExecutor;
+    private final CrawlFrontier frontier;
+    private final AtomicInteger runningCrawls = new AtomicInteger();
+    private final AtomicBoolean failed = new AtomicBoolean();
+
+    public AsyncSiteIndexingTask(SiteCrawlContext context, CrawlExecutor crawlExecutor, CrawlFrontier frontier) {
+        this.context = context;
+        this.crawlExecutor = crawlExecutor;
+        this.frontier = frontier;
+    }
+
+    @Override
+    public Boolean invokeIn(ForkJoinPool forkJoinPool) {
+        return invoke();
+    }
+
+    @Override
+    public void stopCompute() {
+        if (!isDone()) {
+            context.stop();
+        }
+    }
+
+    @Override
+    protected Boolean compute() {
+        schedule(context.getSiteData().getUrl());
+        try {
+            while (context.isRunning() && !failed.get() && frontier.hasPending()) {
+                frontier.maybeCheckpoint();
+                URL url = frontier.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (url == null) {
+                    continue;
+                }
+                crawlExecutor.acquire();
+                runningCrawls.incrementAndGet();
+                try {
+                    crawlExecutor.execute(() -> crawl(url));
+                } catch (RejectedExecutionException e) {
+                    runningCrawls.decrementAndGet();
+                    failed.set(true);
+                    context.fail(e);
+                }
+            }
+            awaitCrawls();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return !failed.get() && context.isRunning();
+    }
+
+    private void schedule(URL url) {
+        if (context.markVisited(url)) {
+            frontier.push(url);
+        }
+    }
+
+    private void crawl(URL url) {
+        try {
+            List<URL> links = new ArrayList<>();
+            if (context.indexPage(url, links)) {
+                links.forEach(this::schedule);
+                frontier.complete(url);
+            } else {
+                failed.set(true);
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            failed.set(true);
+            context.fail(e);
+        } finally {
+            if (runningCrawls.decrementAndGet() == 0) {
+                synchronized (runningCrawls) {
+                    runningCrawls.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void awaitCrawls() throws InterruptedException {
+        synchronized (runningCrawls) {
+            while (runningCrawls.get() > 0) {
+                runningCrawls.wait(POLL_TIMEOUT_MILLIS);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package searchengine.services.indexing;
+
+import lombok.Getter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Исполнитель загрузок для режима {@link CrawlMode#VIRTUAL_THREADS}. Загрузки выполняются
+ * на виртуальных потоках, если их поддерживает JVM (Java 21+). На Java 17 они выполняются
+ * на небольшом пуле платформенных потоков, и лимит загрузок уменьшается до его размера:
+ * Jsoup читает ответ блокирующе, и сотни потоков ради ожидания сети не создаются.
+ * Общее число загрузок по всем сайтам ограничено семафором.
+ */
+public class CrawlExecutor {
+
+    private final ExecutorService fetchExecutor;
+
+    private final Semaphore fetchPermits;
+
+    @Getter
+    private final int fetchConcurrency;
+
+    @Getter
+    private final boolean virtualThreads;
+
+    public CrawlExecutor(int fetchConcurrency, int platformFetchThreads) {
+        ExecutorService virtualExecutor = newVirtualThreadExecutor();
+        this.virtualThreads = virtualExecutor != null;
+        this.fetchConcurrency = virtualThreads ? fetchConcurrency : Math.min(fetchConcurrency, platformFetchThreads);
+        this.fetchPermits = new Semaphore(this.fetchConcurrency, true);
+        this.fetchExecutor = virtualThreads ? virtualExecutor : newPlatformExecutor(this.fetchConcurrency);
+    }
+
+    public void acquire() throws InterruptedException {
+        fetchPermits.acquire();
+    }
+
+    /**
+     * Запускает загрузку, разрешение на которую уже получено через {@link #acquire()}.
+     * Если исполнитель отклонил задачу, разрешение возвращается.
+     */
+    public void execute(Runnable fetch) {
+        try {
+            fetchExecutor.execute(() -> {
+                try {
+                    fetch.run();
+                } finally {
+                    fetchPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fetchPermits.release();
+            throw e;
+        }
+    }
+
+    public int getInFlight() {
+        return fetchConcurrency - fetchPermits.availablePermits();
+    }
+
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformExecutor(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "crawl-fetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
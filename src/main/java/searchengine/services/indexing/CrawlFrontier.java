@@ -0,0 +1,30 @@
+package searchengine.services.indexing;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Очередь адресов обхода сайта. Адрес считается обработанным только после {@link #complete(URL)}.
+ */
+public interface CrawlFrontier {
+
+    void push(URL url);
+
+    URL poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    void complete(URL url);
+
+    boolean hasPending();
+
+    int getPendingCount();
+
+    UrlSet getSeenUrls();
+
+    boolean isResumed();
+
+    void maybeCheckpoint();
+
+    void checkpoint();
+
+    void discard();
+}
@@ -0,0 +1,6 @@
+package searchengine.services.indexing;
+
+public enum CrawlMode {
+    FORK_JOIN,
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,298 @@
+package searchengine.services.indexing;
+
+import lombok.Getter;
+import searchengine.model.SiteEntity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Очередь обхода на диске: адреса дописываются в журнал frontier.log, посещённые адреса
+ * хранятся в {@link MappedUrlSet}. В файле checkpoint периодически сохраняется смещение
+ * журнала, до которого все адреса обработаны и записаны в базу; после остановки или падения
+ * обход продолжается с этого смещения.
+ */
+public class DiskCrawlFrontier implements CrawlFrontier {
+
+    private static final String LOG_FILE = "frontier.log";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private static final String SEEN_DIRECTORY = "seen";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int MAX_RECORD_SIZE = 8192;
+
+    private final Path directory;
+
+    private final SiteEntity site;
+
+    private final PageWriter pageWriter;
+
+    private final long checkpointIntervalNanos;
+
+    private final FileChannel log;
+
+    @Getter
+    private final UrlSet seenUrls;
+
+    @Getter
+    private final boolean resumed;
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+
+    private final Map<String, Long> inFlight = new HashMap<>();
+
+    private long flushedOffset;
+
+    private long readOffset;
+
+    private int pendingUrls;
+
+    private long candidateOffset = -1;
+
+    private long candidateSequence;
+
+    private long lastCheckpointNanos = System.nanoTime();
+
+    private DiskCrawlFrontier(Path directory, SiteEntity site, PageWriter pageWriter, int expectedUrls,
+                              long checkpointIntervalMillis) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.site = site;
+        this.pageWriter = pageWriter;
+        this.checkpointIntervalNanos = TimeUnit.MILLISECONDS.toNanos(checkpointIntervalMillis);
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        long committedOffset = Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint).trim()) : 0;
+        deleteRecursively(directory.resolve(SEEN_DIRECTORY));
+        this.seenUrls = new MappedUrlSet(directory.resolve(SEEN_DIRECTORY), expectedUrls);
+        this.log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replayLog(committedOffset);
+        this.resumed = flushedOffset > 0;
+    }
+
+    public static DiskCrawlFrontier open(Path directory, SiteEntity site, PageWriter pageWriter, int expectedUrls,
+                                         long checkpointIntervalMillis) throws IOException {
+        return new DiskCrawlFrontier(directory, site, pageWriter, expectedUrls, checkpointIntervalMillis);
+    }
+
+    public static boolean exists(Path directory) {
+        return Files.exists(directory.resolve(CHECKPOINT_FILE));
+    }
+
+    public static void delete(Path directory) throws IOException {
+        deleteRecursively(directory);
+    }
+
+    @Override
+    public synchronized void push(URL url) {
+        byte[] record = (url.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+        if (record.length > MAX_RECORD_SIZE) {
+            return;
+        }
+        try {
+            if (record.length > writeBuffer.remaining()) {
+                flushWrites();
+            }
+            writeBuffer.put(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pendingUrls++;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized URL poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            long offset = readOffset;
+            String record;
+            try {
+                record = readRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (record != null) {
+                try {
+                    URL url = new URL(record);
+                    inFlight.put(url.toString(), offset);
+                    return url;
+                } catch (MalformedURLException e) {
+                    pendingUrls--;
+                    continue;
+                }
+            }
+            long waitMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (waitMillis <= 0) {
+                return null;
+            }
+            wait(waitMillis);
+        }
+    }
+
+    @Override
+    public synchronized void complete(URL url) {
+        if (inFlight.remove(url.toString()) != null) {
+            pendingUrls--;
+        }
+    }
+
+    @Override
+    public synchronized boolean hasPending() {
+        return pendingUrls > 0;
+    }
+
+    @Override
+    public synchronized int getPendingCount() {
+        return pendingUrls;
+    }
+
+    @Override
+    public synchronized void maybeCheckpoint() {
+        if (candidateOffset >= 0 && pageWriter.isWritten(site, candidateSequence)) {
+            writeCheckpoint(candidateOffset);
+            candidateOffset = -1;
+        }
+        long now = System.nanoTime();
+        if (candidateOffset < 0 && now - lastCheckpointNanos >= checkpointIntervalNanos) {
+            candidateOffset = completedOffset();
+            candidateSequence = pageWriter.getSubmittedSequence(site);
+            lastCheckpointNanos = now;
+        }
+    }
+
+    @Override
+    public synchronized void checkpoint() {
+        writeCheckpoint(completedOffset());
+        candidateOffset = -1;
+        closeLog();
+    }
+
+    @Override
+    public synchronized void discard() {
+        closeLog();
+        try {
+            deleteRecursively(directory);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private long completedOffset() {
+        return inFlight.values().stream().min(Long::compare).orElse(readOffset);
+    }
+
+    private void writeCheckpoint(long offset) {
+        try {
+            flushWrites();
+            log.force(false);
+            Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(temp, Long.toString(offset));
+            Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void replayLog(long committedOffset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+        long position = 0;
+        long recordEnd = 0;
+        while (log.read(buffer, position) > 0) {
+            buffer.flip();
+            position += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                recordEnd++;
+                if (b != '\n') {
+                    if (record.hasRemaining()) {
+                        record.put(b);
+                    }
+                    continue;
+                }
+                seenUrls.add(new String(record.array(), 0, record.position(), StandardCharsets.UTF_8));
+                record.clear();
+                if (recordEnd > committedOffset) {
+                    pendingUrls++;
+                }
+                flushedOffset = recordEnd;
+            }
+            buffer.clear();
+        }
+        log.truncate(flushedOffset);
+        readOffset = Math.min(committedOffset, flushedOffset);
+    }
+
+    private String readRecord() throws IOException {
+        while (true) {
+            for (int i = readBuffer.position(); i < readBuffer.limit(); i++) {
+                if (readBuffer.get(i) == '\n') {
+                    byte[] bytes = new byte[i - readBuffer.position()];
+                    readBuffer.get(bytes).get();
+                    readOffset += bytes.length + 1;
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+            long fileOffset = readOffset + readBuffer.remaining();
+            if (fileOffset >= flushedOffset) {
+                if (writeBuffer.position() == 0) {
+                    return null;
+                }
+                flushWrites();
+            }
+            readBuffer.compact();
+            int read = log.read(readBuffer, fileOffset);
+            readBuffer.flip();
+            if (read <= 0) {
+                return null;
+            }
+        }
+    }
+
+    private void flushWrites() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            flushedOffset += log.write(writeBuffer, flushedOffset);
+        }
+        writeBuffer.clear();
+    }
+
+    private void closeLog() {
+        try {
+            if (log.isOpen()) {
+                flushWrites();
+                log.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package searchengine.services.indexing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import searchengine.services.JsoupUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Загруженная страница: код ответа, валидаторы для условного запроса, исходные байты тела
+ * ответа (не длиннее лимита бота) с определённой при разборе кодировкой, заголовок, текст
+ * и ссылки. Тело разбирается прямо из потока ответа, байты копируются по мере чтения; документ
+ * отбрасывается внутри {@link #read}, так что на время лемматизации и записи страница держит
+ * только тело и текст.
+ */
+@Getter
+@AllArgsConstructor
+public class FetchedPage {
+
+    private final int code;
+
+    private final String etag;
+
+    private final String lastModified;
+
+    private final byte[] content;
+
+    private final String charset;
+
+    private final boolean truncated;
+
+    private final String title;
+
+    private final String text;
+
+    private final List<String> links;
+
+    public static FetchedPage read(Connection.Response response, int maxBodySize) throws IOException {
+        CapturingInputStream body = new CapturingInputStream(response.bodyStream(), maxBodySize);
+        Document document = Jsoup.parse(body, response.charset(), response.url().toExternalForm());
+        List<String> links = new ArrayList<>();
+        String text = JsoupUtil.documentText(document, links);
+        return new FetchedPage(response.statusCode(), response.header("ETag"), response.header("Last-Modified"),
+                body.toByteArray(), document.charset().name(), body.isTruncated(), document.title(), text, links);
+    }
+
+    /**
+     * Оценка памяти, занятой телом и текстом страницы после разбора. Документ живёт только
+     * внутри {@link #read} и не учитывается.
+     */
+    public long getMemorySize() {
+        return content.length + 2L * text.length();
+    }
+
+    /**
+     * Поток тела ответа, который копирует прочитанные байты и обрывается на {@code maxBodySize}.
+     */
+    private static class CapturingInputStream extends FilterInputStream {
+
+        private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        private final int maxBodySize;
+
+        private CapturingInputStream(InputStream in, int maxBodySize) {
+            super(in);
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (maxBodySize > 0) {
+                int remaining = maxBodySize - captured.size();
+                if (remaining <= 0) {
+                    return -1;
+                }
+                length = Math.min(length, remaining);
+            }
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                captured.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private boolean isTruncated() {
+            return maxBodySize > 0 && captured.size() >= maxBodySize;
+        }
+
+        private byte[] toByteArray() {
+            return captured.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package searchengine.services.indexing;
+
+import lombok.RequiredArgsConstructor;
+import org.jsoup.HttpStatusException;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.springframework.stereotype.Component;
+import searchengine.config.IndexingConfig;
+import searchengine.config.SearchBot;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Вежливый обход: для каждого хоста ведётся корзина токенов и лимит одновременных загрузок.
+ * Скорость растёт на успешных ответах, падает вдвое на 429/503, 5xx, таймаутах и ошибках
+ * соединения, плавно снижается при медленных ответах и не превышает Crawl-delay из robots.txt.
+ * Прочие ошибки загрузки скорость не меняют.
+ */
+@Component
+@RequiredArgsConstructor
+public class HostPolitenessScheduler {
+
+    private static final double RATE_INCREASE_STEP = 0.1;
+
+    private static final double SLOW_RESPONSE_DECREASE = 0.9;
+
+    private static final double ERROR_DECREASE = 0.5;
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private static final long MAX_WAIT_MILLIS = 1000;
+
+    /**
+     * Код для {@link #release}: таймаут или ошибка соединения.
+     */
+    public static final int CONNECTION_ERROR = 0;
+
+    /**
+     * Код для {@link #release}: ошибка загрузки, не связанная с нагрузкой на хост.
+     */
+    public static final int OTHER_ERROR = -1;
+
+    private static final int HTTP_OK = 200;
+
+    private final IndexingConfig indexingConfig;
+
+    private final SearchBot searchBot;
+
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    public void acquire(URL url) throws InterruptedException {
+        HostState host = hosts.computeIfAbsent(url.getHost(), key -> new HostState());
+        host.init(url);
+        ForkJoinPool.managedBlock(host.new PermitBlocker());
+    }
+
+    public void release(URL url, long latencyNanos, int statusCode) {
+        HostState host = hosts.get(url.getHost());
+        if (host != null) {
+            host.release(latencyNanos, statusCode);
+        }
+    }
+
+    public static boolean isThrottled(int statusCode) {
+        return statusCode == 429 || statusCode == 503;
+    }
+
+    /**
+     * Код ответа для {@link #release} по ошибке загрузки: отказ по MIME-типу — успешный ответ,
+     * таймауты и ошибки сокета — {@link #CONNECTION_ERROR}, остальное — {@link #OTHER_ERROR}.
+     */
+    public static int statusCode(IOException e) {
+        if (e instanceof HttpStatusException statusException) {
+            return statusException.getStatusCode();
+        } else if (e instanceof UnsupportedMimeTypeException) {
+            return HTTP_OK;
+        } else if (e instanceof SocketTimeoutException || e instanceof SocketException
+                || e instanceof UnknownHostException) {
+            return CONNECTION_ERROR;
+        }
+        return OTHER_ERROR;
+    }
+
+    private static boolean isOverloaded(int statusCode) {
+        return statusCode == CONNECTION_ERROR || isThrottled(statusCode) || statusCode >= 500;
+    }
+
+    private class HostState {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition permitReleased = lock.newCondition();
+        private final AtomicBoolean robotsRequested = new AtomicBoolean();
+        private final CompletableFuture<Void> configured = new CompletableFuture<>();
+        private double rate;
+        private double maxRate;
+        private int maxInFlight;
+        private double tokens;
+        private long lastRefillNanos;
+        private int inFlight;
+        private double latencyMillis;
+
+        /**
+         * Первый поток хоста читает robots.txt вне блокировки и публикует Crawl-delay через
+         * {@link #configured}; остальные ждут этого прерываемо, не занимая блокировку хоста.
+         */
+        private void init(URL url) throws InterruptedException {
+            if (robotsRequested.compareAndSet(false, true)) {
+                Double crawlDelay = null;
+                try {
+                    crawlDelay = indexingConfig.getRespectCrawlDelay() ? readCrawlDelay(url) : null;
+                } finally {
+                    configure(crawlDelay);
+                    configured.complete(null);
+                }
+            }
+            try {
+                configured.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        private void configure(Double crawlDelay) {
+            lock.lock();
+            try {
+                maxRate = indexingConfig.getHostMaxRate();
+                maxInFlight = indexingConfig.getHostMaxInFlight();
+                if (crawlDelay != null && crawlDelay > 0) {
+                    maxRate = Math.min(maxRate, 1 / crawlDelay);
+                    maxInFlight = 1;
+                }
+                rate = Math.min(indexingConfig.getHostInitialRate(), maxRate);
+                tokens = 1;
+                lastRefillNanos = System.nanoTime();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean tryAcquire() {
+            lock.lock();
+            try {
+                refill();
+                if (inFlight >= maxInFlight || tokens < 1) {
+                    return false;
+                }
+                tokens--;
+                inFlight++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Ждёт на условии, а не в {@code wait()}: виртуальный поток, ждущий внутри
+         * {@code synchronized}, держит поток-носитель.
+         */
+        private void awaitPermit() throws InterruptedException {
+            lock.lock();
+            try {
+                refill();
+                long waitMillis = inFlight >= maxInFlight ? MAX_WAIT_MILLIS :
+                        (long) Math.ceil((1 - tokens) / rate * 1000);
+                permitReleased.await(Math.max(1, Math.min(waitMillis, MAX_WAIT_MILLIS)), TimeUnit.MILLISECONDS);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(long latencyNanos, int statusCode) {
+            lock.lock();
+            try {
+                inFlight--;
+                if (statusCode != OTHER_ERROR) {
+                    adjustRate(latencyNanos, statusCode);
+                }
+                permitReleased.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void adjustRate(long latencyNanos, int statusCode) {
+            double latency = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+            latencyMillis = latencyMillis == 0 ? latency :
+                    latencyMillis + LATENCY_SMOOTHING * (latency - latencyMillis);
+            double minRate = Math.min(indexingConfig.getHostMinRate(), maxRate);
+            if (isOverloaded(statusCode)) {
+                rate = Math.max(minRate, rate * ERROR_DECREASE);
+                tokens = Math.min(tokens, 0);
+            } else if (latencyMillis > indexingConfig.getHostSlowResponseMillis()) {
+                rate = Math.max(minRate, rate * SLOW_RESPONSE_DECREASE);
+            } else {
+                rate = Math.min(maxRate, rate + RATE_INCREASE_STEP);
+            }
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(indexingConfig.getHostBurst(), tokens + (now - lastRefillNanos) / 1e9 * rate);
+            lastRefillNanos = now;
+        }
+
+        private class PermitBlocker implements ForkJoinPool.ManagedBlocker {
+
+            private boolean acquired;
+
+            @Override
+            public boolean block() throws InterruptedException {
+                if (!isReleasable()) {
+                    awaitPermit();
+                }
+                return isReleasable();
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return acquired || (acquired = tryAcquire());
+            }
+        }
+    }
+
+    private Double readCrawlDelay(URL url) {
+        String robots;
+        try {
+            robots = searchBot.getRobotsTxt(new URL(url.getProtocol(), url.getHost(), url.getPort(), "/robots.txt"));
+        } catch (Exception e) {
+            return null;
+        }
+        if (robots == null) {
+            return null;
+        }
+        String userAgent = searchBot.getUserAgent().toLowerCase(Locale.ROOT);
+        Double commonDelay = null;
+        Double botDelay = null;
+        boolean commonGroup = false;
+        boolean botGroup = false;
+        boolean groupStarted = false;
+        for (String line : robots.split("\\r?\\n")) {
+            int commentStart = line.indexOf('#');
+            String entry = (commentStart >= 0 ? line.substring(0, commentStart) : line).trim();
+            int colon = entry.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String field = entry.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = entry.substring(colon + 1).trim();
+            if (field.equals("user-agent")) {
+                if (groupStarted) {
+                    commonGroup = false;
+                    botGroup = false;
+                    groupStarted = false;
+                }
+                String agent = value.toLowerCase(Locale.ROOT);
+                commonGroup |= agent.equals("*");
+                botGroup |= !agent.isEmpty() && userAgent.contains(agent);
+            } else {
+                groupStarted = true;
+                if (field.equals("crawl-delay") && (commonGroup || botGroup)) {
+                    try {
+                        double delay = Double.parseDouble(value);
+                        if (botGroup) {
+                            botDelay = delay;
+                        } else {
+                            commonDelay = delay;
+                        }
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+        }
+        return botDelay != null ? botDelay : commonDelay;
+    }
+}
@@ -0,0 +1,135 @@
+package searchengine.services.indexing;
+
+import io.micrometer.core.instrument.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Метрики обхода и записи страниц: время ответа, время чтения тела и коды ответов по сайтам,
+ * размер очереди обхода, размер и память загруженных страниц, время и размер пачек записи.
+ * Число загруженных страниц в секунду по сайту — скорость счётчика {@code crawl.fetch}.
+ */
+@Component
+@RequiredArgsConstructor
+public class IndexingMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong pageMemory = new AtomicLong();
+
+    private Timer writeTimer;
+
+    private DistributionSummary writeBatchSize;
+
+    private Timer submitTimer;
+
+    @PostConstruct
+    private void init() {
+        writeTimer = Timer.builder("indexing.write")
+                .description("Время записи пачки страниц с леммами и индексами")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        writeBatchSize = DistributionSummary.builder("indexing.write.batch.size")
+                .description("Число страниц в пачке записи")
+                .baseUnit("pages")
+                .register(meterRegistry);
+        submitTimer = Timer.builder("indexing.write.submit")
+                .description("Время передачи страницы в очередь записи")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("crawl.page.memory", pageMemory, AtomicLong::get)
+                .description("Тела и тексты загруженных страниц до передачи на запись")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void recordFetch(String site, int statusCode, long elapsedNanos) {
+        Timer.builder("crawl.fetch")
+                .description("Время загрузки страницы вместе с чтением тела")
+                .tag("site", site)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("crawl.responses")
+                .description("Ответы сайта по HTTP-кодам")
+                .tag("site", site)
+                .tag("status", statusCode == HostPolitenessScheduler.CONNECTION_ERROR ? "IO_ERROR" :
+                        statusCode == HostPolitenessScheduler.OTHER_ERROR ? "OTHER_ERROR" : String.valueOf(statusCode))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Часть {@code crawl.fetch}: чтение тела из сокета и разбор в {@link FetchedPage#read}.
+     */
+    public void recordBodyRead(String site, long elapsedNanos) {
+        Timer.builder("crawl.fetch.body")
+                .description("Время чтения и разбора тела страницы")
+                .tag("site", site)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPage(String site, int bodySize, boolean truncated) {
+        DistributionSummary.builder("crawl.page.size")
+                .description("Размер тела страницы")
+                .tag("site", site)
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(bodySize);
+        if (truncated) {
+            Counter.builder("crawl.page.truncated")
+                    .description("Страницы, обрезанные по лимиту размера тела")
+                    .tag("site", site)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    public void addPageMemory(long bytes) {
+        pageMemory.addAndGet(bytes);
+    }
+
+    public Meter registerFrontier(String site, CrawlFrontier frontier) {
+        return Gauge.builder("crawl.frontier.size", frontier, CrawlFrontier::getPendingCount)
+                .description("Адреса в очереди обхода и в обработке")
+                .tag("site", site)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Размер очереди при обходе задачами fork/join: задачи страниц, которые ещё не загружены.
+     */
+    public Meter registerFrontier(String site, AtomicInteger pendingPages) {
+        return Gauge.builder("crawl.frontier.size", pendingPages, AtomicInteger::get)
+                .description("Адреса в очереди обхода и в обработке")
+                .tag("site", site)
+                .register(meterRegistry);
+    }
+
+    public void registerWriteQueue(Collection<?> queue) {
+        Gauge.builder("indexing.write.queue.size", queue, Collection::size)
+                .description("Страницы в очереди записи")
+                .register(meterRegistry);
+    }
+
+    public void remove(Meter meter) {
+        meterRegistry.remove(meter);
+    }
+
+    public void recordWrite(int batchSize, long elapsedNanos) {
+        writeTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        writeBatchSize.record(batchSize);
+    }
+
+    public void recordSubmit(long elapsedNanos) {
+        submitTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
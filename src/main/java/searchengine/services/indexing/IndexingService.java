@@ -1,6 +1,8 @@
 package searchengine.services.indexing;
 
 import searchengine.dto.indexing.IndexingResponse;
+import searchengine.dto.indexing.LemmaDictionaryResponse;
+import searchengine.dto.indexing.PageWriterResponse;
 
 public interface IndexingService {
 
@@ -11,4 +13,8 @@ public interface IndexingService {
     IndexingResponse pageIndexing(String url) throws IndexingServiceException;
 
     boolean isIndexing();
+
+    LemmaDictionaryResponse getLemmaDictionaryStatistics();
+
+    PageWriterResponse getPageWriterStatistics();
 }
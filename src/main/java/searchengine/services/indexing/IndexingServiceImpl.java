@@ -1,29 +1,32 @@
 package searchengine.services.indexing;
 
+import io.micrometer.core.instrument.Meter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import searchengine.config.IndexingConfig;
 import searchengine.config.SearchBot;
 import searchengine.config.Site;
 import searchengine.config.SitesList;
 import searchengine.dto.indexing.IndexingResponse;
+import searchengine.dto.indexing.LemmaDictionaryResponse;
+import searchengine.dto.indexing.PageWriterResponse;
 import searchengine.dto.indexing.SiteData;
 import searchengine.model.*;
-import searchengine.model.repositories.IndexRepository;
-import searchengine.model.repositories.LemmaRepository;
 import searchengine.model.repositories.PageRepository;
 import searchengine.model.repositories.SiteRepository;
 import searchengine.services.LemmaFinder;
+import searchengine.services.searching.SearchResultCache;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -35,10 +38,6 @@ public class IndexingServiceImpl implements IndexingService {
 
     private final SiteRepository siteRepository;
 
-    private final LemmaRepository lemmaRepository;
-
-    private final IndexRepository indexRepository;
-
     private final SearchBot searchBot;
 
     private final ForkJoinPool forkJoinPool;
@@ -51,6 +50,18 @@ public class IndexingServiceImpl implements IndexingService {
 
     private final LemmaFinder lemmaFinder;
 
+    private final IndexingConfig indexingConfig;
+
+    private final PageWriter pageWriter;
+
+    private final CrawlExecutor crawlExecutor;
+
+    private final HostPolitenessScheduler politenessScheduler;
+
+    private final SearchResultCache searchResultCache;
+
+    private final IndexingMetrics indexingMetrics;
+
     @Override
     public IndexingResponse startSitesIndexing() throws IndexingServiceException {
         List<Site> sitesList = sites.getSites();
@@ -63,10 +74,15 @@ public class IndexingServiceImpl implements IndexingService {
         for (SiteData siteData : sitesData) {
             SiteEntity siteEntity = new SiteEntity(siteData.getName(), siteData.getUrl().toString(),
                     Status.INDEXING, "");
-            SiteIndexingTask siteIndexingTask = new SiteIndexingTask(siteData, siteEntity, searchBot, this,
-                    lemmaFinder);
+            CrawlFrontier frontier = openFrontier(siteData, siteEntity);
+            SiteCrawlContext context = new SiteCrawlContext(siteData, siteEntity, searchBot, this, lemmaFinder,
+                    frontier.getSeenUrls(), forkJoinPool, politenessScheduler, indexingConfig.getThrottleRetries(),
+                    indexingMetrics);
+            AbstractIndexingTask siteIndexingTask = indexingConfig.getCrawlMode() == CrawlMode.VIRTUAL_THREADS
+                    || indexingConfig.getPersistentFrontier() ?
+                    new AsyncSiteIndexingTask(context, crawlExecutor, frontier) : new SiteIndexingTask(context);
             mapTaskThread.put(siteIndexingTask, threadPoolTaskExecutor.submit(() -> threadSiteIndexing(siteIndexingTask,
-                    siteEntity, siteData)));
+                    context, frontier)));
         }
         return new IndexingResponse(true);
     }
@@ -111,7 +127,7 @@ public class IndexingServiceImpl implements IndexingService {
                 site.getUrl(), Status.INDEXING, "");
         PageEntity pageEntity = pageRepository.findByPath(url.toString());
         if (pageEntity != null) {
-            deletePage(pageEntity);
+            pageWriter.deletePages(siteEntity, List.of(pageEntity.getId()));
         }
         PageIndexingTask pageIndexingTask = new PageIndexingTask(url, siteEntity, searchBot, this,
                 lemmaFinder);
@@ -125,21 +141,49 @@ public class IndexingServiceImpl implements IndexingService {
         return mapTaskThread.isEmpty();
     }
 
-    public Void threadSiteIndexing(SiteIndexingTask siteIndexingTask, SiteEntity siteEntity, SiteData siteData) {
+    public Void threadSiteIndexing(AbstractIndexingTask siteIndexingTask, SiteCrawlContext context,
+                                   CrawlFrontier frontier) {
         runningIndexingTasks.add(siteIndexingTask);
+        SiteEntity siteEntity = context.getSite();
+        Meter frontierGauge = siteIndexingTask instanceof AsyncSiteIndexingTask ?
+                indexingMetrics.registerFrontier(siteEntity.getName(), frontier) :
+                indexingMetrics.registerFrontier(siteEntity.getName(), context.getPendingPages());
         try {
-            siteRepository.deleteAllByName(siteData.getName());
+            SiteEntity indexedSite = indexingConfig.getIncremental() || frontier.isResumed() ?
+                    siteRepository.findByName(siteEntity.getName()) : null;
+            if (indexedSite == null) {
+                pageWriter.deleteSite(siteEntity);
+            } else {
+                siteEntity.setId(indexedSite.getId());
+                context.loadKnownPages(pageRepository.findVersionsBySiteId(indexedSite.getId()));
+                if (frontier.isResumed() && !indexingConfig.getIncremental()) {
+                    context.markKnownPagesVisited();
+                }
+            }
             saveSite(siteEntity);
-            Boolean inv = forkJoinPool.invoke(siteIndexingTask);
+            pageWriter.openLemmaDictionary(siteEntity);
+            Boolean inv = siteIndexingTask.invokeIn(forkJoinPool);
+            pageWriter.awaitSite(siteEntity);
+            if (inv && indexedSite != null) {
+                pageWriter.deletePages(siteEntity, context.getUnvisitedPageIds());
+            } else if (indexedSite != null) {
+                pageWriter.deleteUnusedLemmas(siteEntity);
+            }
             if (inv) {
                 siteEntity.setStatus(Status.INDEXED);
+                frontier.discard();
+            } else {
+                frontier.checkpoint();
             }
         } catch (Exception e) {
             e.printStackTrace();
             siteEntity.setLastError(e.getClass().getName());
             siteEntity.setStatus(Status.FAILED);
         }
+        indexingMetrics.remove(frontierGauge);
+        pageWriter.closeLemmaDictionary(siteEntity);
         saveSite(siteEntity);
+        searchResultCache.invalidate(siteEntity.getUrl());
         runningIndexingTasks.remove(siteIndexingTask);
         mapTaskThread.remove(siteIndexingTask);
         return null;
@@ -149,6 +193,7 @@ public class IndexingServiceImpl implements IndexingService {
         runningIndexingTasks.add(pageIndexingTask);
         try {
             Boolean inv = forkJoinPool.invoke(pageIndexingTask);
+            pageWriter.awaitSite(siteEntity);
             if (inv) {
                 siteEntity.setStatus(Status.INDEXED);
             }
@@ -171,44 +216,53 @@ public class IndexingServiceImpl implements IndexingService {
         }
     }
 
-    public void savePage(PageEntity pageEntity) {
-        pageRepository.save(pageEntity);
+    public boolean savePage(PageEntity pageEntity, Map<String, Integer> lemmas) {
+        return pageWriter.submit(pageEntity, lemmas);
     }
 
-    public boolean isPageExistByPath(String path) {
-        return pageRepository.existsByPath(path);
+    public String getPageContent(Long pageId) {
+        String content = pageRepository.findContent(pageId);
+        return content == null ? "" : content;
     }
 
-    public void saveLemmasIndexes(PageEntity page, Map<String, Integer> lemmas) {
-        List<IndexEntity> indexEntities = new ArrayList<>();
-        List<LemmaEntity> lemmaEntities = lemmas.entrySet().stream().map(item -> {
-            LemmaEntity lemma = lemmaRepository.findBySiteIdAndLemma(page.getSite().getId(), item.getKey());
-            if (lemma == null) {
-                lemma = new LemmaEntity(page.getSite(), item.getKey(), 1);
-            } else {
-                lemma.setFrequency(lemma.getFrequency() + 1);
-            }
-            indexEntities.add(new IndexEntity(page, lemma, item.getValue().floatValue()));
-            return lemma;
-        }).collect(Collectors.toList());
-        lemmaRepository.saveAll(lemmaEntities);
-        indexRepository.saveAll(indexEntities);
-    }
-
-    @Transactional
-    public void deletePage(PageEntity pageEntity) {
-        List<IndexEntity> indexes = pageEntity.getIndexes();
-        for (IndexEntity index : indexes) {
-            LemmaEntity lemma = index.getLemma();
-            if (lemma.getFrequency() <= 1) {
-                lemmaRepository.delete(lemma);
-            } else {
-                lemma.setFrequency(lemma.getFrequency() - 1);
-                lemmaRepository.save(lemma);
+    public List<String> getPageLinks(Long pageId) {
+        return pageRepository.findLinks(pageId);
+    }
+
+    public void updatePageValidators(PageEntity pageEntity) {
+        try {
+            pageRepository.updateValidators(pageEntity.getId(), pageEntity.getEtag(), pageEntity.getLastModified());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public LemmaDictionaryResponse getLemmaDictionaryStatistics() {
+        return new LemmaDictionaryResponse(true, pageWriter.getLemmaDictionaryStatistics());
+    }
+
+    @Override
+    public PageWriterResponse getPageWriterStatistics() {
+        return new PageWriterResponse(true, pageWriter.getStatistics());
+    }
+
+    private CrawlFrontier openFrontier(SiteData siteData, SiteEntity siteEntity) throws IndexingServiceException {
+        if (!indexingConfig.getPersistentFrontier()) {
+            return new MemoryCrawlFrontier(new VisitedUrlSet(indexingConfig.getExpectedSiteUrls()));
+        }
+        Path directory = Path.of(indexingConfig.getFrontierDirectory(),
+                Long.toHexString(VisitedUrlSet.fingerprint(siteData.getUrl().toString())));
+        try {
+            if (siteRepository.findByName(siteData.getName()) == null) {
+                DiskCrawlFrontier.delete(directory);
             }
-            indexRepository.delete(index);
+            return DiskCrawlFrontier.open(directory, siteEntity, pageWriter, indexingConfig.getExpectedSiteUrls(),
+                    indexingConfig.getFrontierCheckpointInterval());
+        } catch (IOException e) {
+            throw new IndexingServiceException("Не удалось открыть очередь обхода сайта " + siteData.getName()
+                    + ": " + e.getMessage());
         }
-        pageRepository.delete(pageEntity);
     }
 
     private List<SiteData> getSiteConfigs(List<Site> sitesList) throws IndexingServiceException {
@@ -0,0 +1,87 @@
+package searchengine.services.indexing;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Идентификаторы лемм сайта на время обхода. Размер ограничен оценкой занятой памяти:
+ * строка леммы, её идентификатор и узел таблицы. Частоты лемм здесь не хранятся: они
+ * накапливаются по пачке записи и прибавляются в базе в той же транзакции, что и индексы,
+ * иначе удаление лемм с нулевой частотой видело бы в базе ещё не учтённые частоты.
+ */
+public class LemmaDictionary {
+
+    private static final int ENTRY_OVERHEAD = 96;
+
+    @Getter
+    private final String siteName;
+
+    @Getter
+    private final long maxMemory;
+
+    private final Map<String, Long> lemmas = new ConcurrentHashMap<>();
+
+    private final AtomicLong memory = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public LemmaDictionary(String siteName, long maxMemory) {
+        this.siteName = siteName;
+        this.maxMemory = maxMemory;
+    }
+
+    public Long getId(String lemma) {
+        Long id = lemmas.get(lemma);
+        if (id == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return id;
+    }
+
+    public void put(String lemma, Long id) {
+        long entrySize = entrySize(lemma);
+        if (memory.get() + entrySize <= maxMemory && lemmas.putIfAbsent(lemma, id) == null) {
+            memory.addAndGet(entrySize);
+        }
+    }
+
+    /**
+     * Убирает леммы, удалённые из базы, чтобы их идентификаторы больше не использовались.
+     */
+    public void removeAll(Collection<String> removedLemmas) {
+        for (String lemma : removedLemmas) {
+            if (lemmas.remove(lemma) != null) {
+                memory.addAndGet(-entrySize(lemma));
+            }
+        }
+    }
+
+    public int size() {
+        return lemmas.size();
+    }
+
+    public long getMemory() {
+        return memory.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static long entrySize(String lemma) {
+        return ENTRY_OVERHEAD + 2L * lemma.length();
+    }
+}
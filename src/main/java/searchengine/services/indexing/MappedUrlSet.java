@@ -0,0 +1,146 @@
+package searchengine.services.indexing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Множество посещённых URL вне кучи: 64-битные отпечатки адресов хранятся в полосах
+ * с открытой адресацией, каждая полоса отображена в память из отдельного файла.
+ */
+public class MappedUrlSet implements UrlSet {
+
+    private static final int STRIPES = 64;
+
+    private static final int MIN_STRIPE_CAPACITY = 1 << 12;
+
+    private final Path directory;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public MappedUrlSet(Path directory, int expectedUrls) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        int stripeCapacity = Integer.highestOneBit(Math.max(MIN_STRIPE_CAPACITY, expectedUrls / STRIPES * 2 - 1)) << 1;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(i, stripeCapacity);
+        }
+    }
+
+    @Override
+    public boolean add(String url) {
+        long fingerprint = VisitedUrlSet.fingerprint(url);
+        return stripe(fingerprint).add(fingerprint);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = VisitedUrlSet.fingerprint(url);
+        return stripe(fingerprint).contains(fingerprint);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripe(long fingerprint) {
+        return stripes[(int) (fingerprint >>> 58) & (STRIPES - 1)];
+    }
+
+    private class Stripe {
+
+        private final int number;
+
+        private int generation;
+
+        private LongBuffer table;
+
+        private int capacity;
+
+        private int size;
+
+        private Stripe(int number, int capacity) throws IOException {
+            this.number = number;
+            this.table = map(capacity);
+        }
+
+        private synchronized boolean add(long value) {
+            if (size * 2 >= capacity) {
+                resize();
+            }
+            if (!insert(table, capacity, value)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private synchronized boolean contains(long value) {
+            int mask = capacity - 1;
+            for (int i = (int) VisitedUrlSet.mix(value) & mask; table.get(i) != 0; i = (i + 1) & mask) {
+                if (table.get(i) == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private void resize() {
+            LongBuffer oldTable = table;
+            int oldCapacity = capacity;
+            Path oldFile = file(generation);
+            try {
+                table = map(oldCapacity * 2);
+                for (int i = 0; i < oldCapacity; i++) {
+                    long value = oldTable.get(i);
+                    if (value != 0) {
+                        insert(table, capacity, value);
+                    }
+                }
+                Files.deleteIfExists(oldFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private LongBuffer map(int newCapacity) throws IOException {
+            Path file = file(++generation);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                LongBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * Long.BYTES)
+                        .asLongBuffer();
+                capacity = newCapacity;
+                return buffer;
+            }
+        }
+
+        private Path file(int fileGeneration) {
+            return directory.resolve("stripe-" + number + "." + fileGeneration);
+        }
+    }
+
+    private static boolean insert(LongBuffer table, int capacity, long value) {
+        int mask = capacity - 1;
+        int i = (int) VisitedUrlSet.mix(value) & mask;
+        while (table.get(i) != 0) {
+            if (table.get(i) == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table.put(i, value);
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package searchengine.services.indexing;
+
+import lombok.Getter;
+
+import java.net.URL;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MemoryCrawlFrontier implements CrawlFrontier {
+
+    private final BlockingQueue<URL> queue = new LinkedBlockingQueue<>();
+
+    private final AtomicInteger pendingUrls = new AtomicInteger();
+
+    @Getter
+    private final UrlSet seenUrls;
+
+    public MemoryCrawlFrontier(UrlSet seenUrls) {
+        this.seenUrls = seenUrls;
+    }
+
+    @Override
+    public void push(URL url) {
+        pendingUrls.incrementAndGet();
+        queue.add(url);
+    }
+
+    @Override
+    public URL poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    @Override
+    public void complete(URL url) {
+        pendingUrls.decrementAndGet();
+    }
+
+    @Override
+    public boolean hasPending() {
+        return pendingUrls.get() > 0;
+    }
+
+    @Override
+    public int getPendingCount() {
+        return pendingUrls.get();
+    }
+
+    @Override
+    public boolean isResumed() {
+        return false;
+    }
+
+    @Override
+    public void maybeCheckpoint() {
+    }
+
+    @Override
+    public void checkpoint() {
+    }
+
+    @Override
+    public void discard() {
+        queue.clear();
+    }
+}
@@ -0,0 +1,33 @@
+package searchengine.services.indexing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import searchengine.config.IndexingConfig;
+import searchengine.model.repositories.PageRepository;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Переносит содержимое страниц из старой колонки page.content (MEDIUMTEXT)
+ * в сжатую колонку content_data и удаляет старую колонку. Выполняется при создании
+ * контекста, до запуска веб-сервера; ошибка переноса останавливает запуск приложения.
+ */
+@Component
+@RequiredArgsConstructor
+public class PageContentMigration {
+
+    private final PageRepository pageRepository;
+
+    private final IndexingConfig indexingConfig;
+
+    @PostConstruct
+    private void migrate() {
+        try {
+            if (pageRepository.hasLegacyContent()) {
+                pageRepository.migrateLegacyContent(indexingConfig.getContentMigrationBatchSize());
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Не удалось перенести содержимое страниц в content_data", e);
+        }
+    }
+}
@@ -1,18 +1,18 @@
 package searchengine.services.indexing;
 
+import org.jsoup.Connection;
 import org.jsoup.HttpStatusException;
 import org.jsoup.UnsupportedMimeTypeException;
-import org.jsoup.nodes.Document;
 import searchengine.config.SearchBot;
 import searchengine.model.PageEntity;
 import searchengine.model.SiteEntity;
 import searchengine.model.Status;
-import searchengine.services.JsoupUtil;
 import searchengine.services.LemmaFinder;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -53,17 +53,17 @@ public class PageIndexingTask extends AbstractIndexingTask {
         PageEntity page = new PageEntity();
         page.setPath(url.toString());
         page.setSite(site);
-        Document document;
+        FetchedPage fetchedPage;
         try {
-            document = searchBot.getJsoupDocument(url.toString());
-            page.setContent(document.outerHtml());
-            page.setCode(document.connection().response().statusCode());
-            indexingService.savePage(page);
-            indexingService.saveSite(site);
+            Connection.Response response = searchBot.getJsoupResponse(url.toString(), null, null);
+            fetchedPage = FetchedPage.read(response, searchBot.getMaxBodySize());
+            page.setContentBytes(fetchedPage.getContent(), fetchedPage.getCharset());
+            page.setLinks(fetchedPage.getLinks());
+            page.setCode(response.statusCode());
         } catch (HttpStatusException e) {
             page.setContent(e.getMessage());
             page.setCode(e.getStatusCode());
-            indexingService.savePage(page);
+            indexingService.savePage(page, Collections.emptyMap());
             return true;
         } catch (UnsupportedMimeTypeException | MalformedURLException e) {
             return false;
@@ -73,10 +73,10 @@ public class PageIndexingTask extends AbstractIndexingTask {
             indexingService.saveSite(site);
             return false;
         }
-        Map<String, Integer> lemmas = lemmaFinder.collectLemmas(JsoupUtil.documentContentSelector(document).text());
-        synchronized (PageIndexingTask.class) {
-            indexingService.saveLemmasIndexes(page, lemmas);
-        }
-        return true;
+        String text = fetchedPage.getText();
+        page.setTitle(fetchedPage.getTitle());
+        page.setText(text);
+        Map<String, Integer> lemmas = lemmaFinder.collectLemmas(text);
+        return indexingService.savePage(page, lemmas);
     }
 }
@@ -0,0 +1,436 @@
+package searchengine.services.indexing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import searchengine.config.IndexingConfig;
+import searchengine.dto.indexing.LemmaDictionaryData;
+import searchengine.dto.indexing.PageWriterData;
+import searchengine.model.PageEntity;
+import searchengine.model.SiteEntity;
+import searchengine.model.repositories.IndexRepository;
+import searchengine.model.repositories.LemmaRepository;
+import searchengine.model.repositories.PageRepository;
+import searchengine.model.repositories.SiteRepository;
+import searchengine.services.searching.InvertedIndex;
+import searchengine.services.searching.SearchResultCache;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Отложенная запись страниц: задачи обхода кладут готовые страницы в ограниченную очередь,
+ * а потоки записи сохраняют их пачками в одной транзакции вместе с леммами, индексами
+ * и временем статуса сайта. Заполненная очередь блокирует обход.
+ */
+@Component
+@RequiredArgsConstructor
+public class PageWriter {
+
+    private static final int LOCK_RETRY_ATTEMPTS = 3;
+
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final IndexingConfig indexingConfig;
+
+    private final PageRepository pageRepository;
+
+    private final SiteRepository siteRepository;
+
+    private final LemmaRepository lemmaRepository;
+
+    private final IndexRepository indexRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final InvertedIndex invertedIndex;
+
+    private final SearchResultCache searchResultCache;
+
+    private final IndexingMetrics indexingMetrics;
+
+    private final Map<Long, LemmaDictionary> lemmaDictionaries = new ConcurrentHashMap<>();
+
+    private final Map<Long, PendingCounter> pendingCounters = new ConcurrentHashMap<>();
+
+    private final List<Thread> writerThreads = new ArrayList<>();
+
+    private final LongAdder writtenPages = new LongAdder();
+
+    private final LongAdder failedPages = new LongAdder();
+
+    private final LongAdder flushes = new LongAdder();
+
+    private final LongAdder flushNanos = new LongAdder();
+
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+
+    private BlockingQueue<PendingPage> queue;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    private void init() {
+        queue = new ArrayBlockingQueue<>(indexingConfig.getWriterQueueCapacity());
+        indexingMetrics.registerWriteQueue(queue);
+        running = true;
+        for (int i = 0; i < indexingConfig.getWriterThreads(); i++) {
+            Thread thread = new Thread(this::writeLoop, "page-writer-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            writerThreads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread thread : writerThreads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    public boolean submit(PageEntity page, Map<String, Integer> lemmas) {
+        PendingCounter counter = pendingCounters.computeIfAbsent(page.getSite().getId(), siteId -> new PendingCounter());
+        long sequence = counter.increment();
+        long start = System.nanoTime();
+        try {
+            queue.put(new PendingPage(page, lemmas, sequence));
+            indexingMetrics.recordSubmit(System.nanoTime() - start);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            counter.complete(sequence, false);
+            return false;
+        }
+    }
+
+    /**
+     * Ждёт записи всех переданных страниц сайта. Если хотя бы одна пачка не записалась,
+     * бросает {@link IllegalStateException}.
+     */
+    public void awaitSite(SiteEntity site) throws InterruptedException {
+        PendingCounter counter = pendingCounters.get(site.getId());
+        if (counter != null) {
+            try {
+                counter.awaitZero();
+            } finally {
+                pendingCounters.remove(site.getId(), counter);
+            }
+        }
+    }
+
+    public long getSubmittedSequence(SiteEntity site) {
+        PendingCounter counter = pendingCounters.get(site.getId());
+        return counter == null ? 0 : counter.getLastSequence();
+    }
+
+    public boolean isWritten(SiteEntity site, long sequence) {
+        PendingCounter counter = pendingCounters.get(site.getId());
+        return counter == null || counter.isWritten(sequence);
+    }
+
+    public void openLemmaDictionary(SiteEntity site) {
+        lemmaDictionaries.put(site.getId(), new LemmaDictionary(site.getName(),
+                indexingConfig.getLemmaDictionaryMemory()));
+    }
+
+    public void closeLemmaDictionary(SiteEntity site) {
+        if (site.getId() != null) {
+            lemmaDictionaries.remove(site.getId());
+        }
+    }
+
+    public List<LemmaDictionaryData> getLemmaDictionaryStatistics() {
+        List<LemmaDictionaryData> dictionariesData = new ArrayList<>();
+        for (LemmaDictionary dictionary : lemmaDictionaries.values()) {
+            LemmaDictionaryData data = new LemmaDictionaryData();
+            data.setSiteName(dictionary.getSiteName());
+            data.setSize(dictionary.size());
+            data.setMemory(dictionary.getMemory());
+            data.setMaxMemory(dictionary.getMaxMemory());
+            data.setHits(dictionary.getHits());
+            data.setMisses(dictionary.getMisses());
+            long lookups = dictionary.getHits() + dictionary.getMisses();
+            data.setHitRate(lookups == 0 ? 0 : (double) dictionary.getHits() / lookups);
+            dictionariesData.add(data);
+        }
+        return dictionariesData;
+    }
+
+    public PageWriterData getStatistics() {
+        PageWriterData data = new PageWriterData();
+        data.setQueueSize(queue.size());
+        data.setQueueCapacity(indexingConfig.getWriterQueueCapacity());
+        long flushCount = flushes.sum();
+        data.setWrittenPages(writtenPages.sum());
+        data.setFailedPages(failedPages.sum());
+        data.setFlushes(flushCount);
+        data.setAverageBatchSize(flushCount == 0 ? 0 : (double) writtenPages.sum() / flushCount);
+        data.setAverageFlushMillis(flushCount == 0 ? 0 : flushNanos.sum() / 1e6 / flushCount);
+        data.setMaxFlushMillis(maxFlushNanos.get() / 1e6);
+        data.setLastFlushMillis(lastFlushNanos.get() / 1e6);
+        return data;
+    }
+
+    private void writeLoop() {
+        int batchSize = indexingConfig.getWriterBatchSize();
+        long flushInterval = TimeUnit.MILLISECONDS.toNanos(indexingConfig.getWriterFlushInterval());
+        List<PendingPage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPage first = queue.poll(flushInterval, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval;
+                while (batch.size() < batchSize) {
+                    PendingPage next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                queue.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingPage> batch) {
+        long start = System.nanoTime();
+        boolean written = false;
+        try {
+            writePages(batch);
+            written = true;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushes.increment();
+            (written ? writtenPages : failedPages).add(batch.size());
+            flushNanos.add(elapsed);
+            lastFlushNanos.set(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            indexingMetrics.recordWrite(batch.size(), elapsed);
+            for (PendingPage pendingPage : batch) {
+                PendingCounter counter = pendingCounters.get(pendingPage.getPage().getSite().getId());
+                if (counter != null) {
+                    counter.complete(pendingPage.getSequence(), written);
+                }
+            }
+        }
+    }
+
+    public void writePages(List<PendingPage> batch) {
+        Map<SiteEntity, List<PendingPage>> pagesBySite = new LinkedHashMap<>();
+        batch.forEach(pendingPage -> pagesBySite.computeIfAbsent(pendingPage.getPage().getSite(),
+                site -> new ArrayList<>()).add(pendingPage));
+        Map<SiteEntity, Map<String, Long>> newLemmaIds = new HashMap<>();
+        Map<Long, Map<Long, Float>> lemmaRanksByPage = new HashMap<>();
+        for (int attempt = 1; ; attempt++) {
+            Map<PageEntity, Long> pageIds = new IdentityHashMap<>();
+            pagesBySite.values().forEach(pages -> pages.forEach(pendingPage ->
+                    pageIds.put(pendingPage.getPage(), pendingPage.getPage().getId())));
+            try {
+                transactionTemplate.executeWithoutResult(status -> pagesBySite.forEach((site, pages) ->
+                        newLemmaIds.put(site, writeSitePages(site, pages, lemmaRanksByPage))));
+                break;
+            } catch (RuntimeException e) {
+                newLemmaIds.clear();
+                lemmaRanksByPage.clear();
+                pagesBySite.values().forEach(pages -> pages.forEach(pendingPage ->
+                        pendingPage.getPage().setId(pageIds.get(pendingPage.getPage()))));
+                if (!(e instanceof PessimisticLockingFailureException) || attempt >= LOCK_RETRY_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+        invertedIndex.putPages(lemmaRanksByPage);
+        pagesBySite.keySet().forEach(site -> searchResultCache.invalidate(site.getUrl()));
+        pagesBySite.keySet().forEach(site -> {
+            LemmaDictionary dictionary = lemmaDictionaries.get(site.getId());
+            if (dictionary != null) {
+                newLemmaIds.get(site).forEach(dictionary::put);
+            }
+        });
+    }
+
+    /**
+     * Удаляет страницы сайта с их индексом и леммами, оставшимися без страниц, в одной транзакции.
+     * Идентификаторы передаются в запросы частями по {@link #DELETE_CHUNK_SIZE}.
+     */
+    public void deletePages(SiteEntity site, Collection<Long> pageIds) {
+        List<Long> ids = new ArrayList<>(pageIds);
+        List<String> removedLemmas = transactionTemplate.execute(status -> {
+            for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size()));
+                lemmaRepository.decrementFrequenciesByPageIds(chunk);
+                indexRepository.deleteAllByPageIds(chunk);
+                pageRepository.deleteAllByIdInBatch(chunk);
+            }
+            return findAndDeleteUnusedLemmas(site);
+        });
+        invertedIndex.removePages(ids);
+        evictLemmas(site, removedLemmas);
+        searchResultCache.invalidate(site.getUrl());
+    }
+
+    /**
+     * Удаляет леммы сайта, частота которых упала до нуля при замене страниц во время обхода.
+     * Вызывается после записи всех страниц сайта: пока пишутся другие пачки сайта, лемма
+     * с нулевой частотой может снова понадобиться по идентификатору из словаря.
+     */
+    public void deleteUnusedLemmas(SiteEntity site) {
+        List<String> removedLemmas = transactionTemplate.execute(status -> findAndDeleteUnusedLemmas(site));
+        evictLemmas(site, removedLemmas);
+    }
+
+    /**
+     * Удаляет леммы сайта с нулевой частотой и возвращает их, чтобы после фиксации транзакции
+     * убрать их идентификаторы из словаря сайта.
+     */
+    private List<String> findAndDeleteUnusedLemmas(SiteEntity site) {
+        List<String> unusedLemmas = lemmaRepository.findUnusedBySiteId(site.getId());
+        if (!unusedLemmas.isEmpty()) {
+            lemmaRepository.deleteUnusedBySiteId(site.getId());
+        }
+        return unusedLemmas;
+    }
+
+    private void evictLemmas(SiteEntity site, List<String> removedLemmas) {
+        LemmaDictionary dictionary = lemmaDictionaries.get(site.getId());
+        if (dictionary != null && removedLemmas != null && !removedLemmas.isEmpty()) {
+            dictionary.removeAll(removedLemmas);
+        }
+    }
+
+    /**
+     * Удаляет сайт с его страницами, индексом и леммами набором запросов DELETE в одной транзакции,
+     * не загружая сущности.
+     */
+    public void deleteSite(SiteEntity site) {
+        List<Long> pageIds = pageRepository.findIdsBySiteName(site.getName());
+        transactionTemplate.executeWithoutResult(status -> siteRepository.deleteSiteData(site.getName()));
+        invertedIndex.removePages(pageIds);
+        searchResultCache.invalidate(site.getUrl());
+    }
+
+    private Map<String, Long> writeSitePages(SiteEntity site, List<PendingPage> pages,
+                                             Map<Long, Map<Long, Float>> lemmaRanksByPage) {
+        siteRepository.updateStatusTime(site.getId());
+        List<Long> replacedPageIds = pages.stream().map(pendingPage -> pendingPage.getPage().getId())
+                .filter(Objects::nonNull).toList();
+        if (!replacedPageIds.isEmpty()) {
+            lemmaRepository.decrementFrequenciesByPageIds(replacedPageIds);
+            indexRepository.deleteAllByPageIds(replacedPageIds);
+        }
+        pageRepository.saveAll(pages.stream().map(PendingPage::getPage).toList());
+        Map<String, Integer> lemmaPages = countLemmaPages(pages);
+        if (lemmaPages.isEmpty()) {
+            pages.forEach(pendingPage -> lemmaRanksByPage.put(pendingPage.getPage().getId(), Collections.emptyMap()));
+            return Collections.emptyMap();
+        }
+        LemmaDictionary dictionary = lemmaDictionaries.get(site.getId());
+        Map<String, Long> lemmaIds = new HashMap<>(lemmaPages.size() * 2);
+        Map<Long, Integer> knownIncrements = new HashMap<>();
+        Map<String, Integer> newIncrements = new TreeMap<>();
+        Map<String, Long> newLemmaIds = Collections.emptyMap();
+        lemmaPages.forEach((lemma, pageCount) -> {
+            Long id = dictionary == null ? null : dictionary.getId(lemma);
+            if (id == null) {
+                newIncrements.put(lemma, pageCount);
+            } else {
+                lemmaIds.put(lemma, id);
+                knownIncrements.put(id, pageCount);
+            }
+        });
+        if (!knownIncrements.isEmpty()) {
+            lemmaRepository.incrementFrequencies(knownIncrements);
+        }
+        if (!newIncrements.isEmpty()) {
+            lemmaRepository.upsertLemmas(site.getId(), newIncrements);
+            newLemmaIds = lemmaRepository.findLemmaIds(site.getId(), newIncrements.keySet());
+            lemmaIds.putAll(newLemmaIds);
+        }
+        Map<Long, Map<Long, Float>> siteLemmaRanksByPage = new HashMap<>();
+        for (PendingPage pendingPage : pages) {
+            Map<Long, Float> lemmaRanks = new HashMap<>(pendingPage.getLemmas().size() * 2);
+            pendingPage.getLemmas().forEach((lemma, count) -> {
+                Long id = lemmaIds.get(lemma);
+                if (id != null) {
+                    lemmaRanks.put(id, count.floatValue());
+                }
+            });
+            siteLemmaRanksByPage.put(pendingPage.getPage().getId(), lemmaRanks);
+        }
+        indexRepository.insertIndexes(siteLemmaRanksByPage);
+        lemmaRanksByPage.putAll(siteLemmaRanksByPage);
+        return newLemmaIds;
+    }
+
+    private Map<String, Integer> countLemmaPages(List<PendingPage> pages) {
+        Map<String, Integer> lemmaPages = new HashMap<>();
+        pages.forEach(pendingPage -> pendingPage.getLemmas().keySet()
+                .forEach(lemma -> lemmaPages.merge(lemma, 1, Integer::sum)));
+        return lemmaPages;
+    }
+
+    private static class PendingCounter {
+
+        private final TreeSet<Long> pending = new TreeSet<>();
+
+        private long lastSequence;
+
+        private long firstFailedSequence = Long.MAX_VALUE;
+
+        private synchronized long increment() {
+            pending.add(++lastSequence);
+            return lastSequence;
+        }
+
+        private synchronized void complete(long sequence, boolean written) {
+            pending.remove(sequence);
+            if (!written) {
+                firstFailedSequence = Math.min(firstFailedSequence, sequence);
+            }
+            if (pending.isEmpty()) {
+                notifyAll();
+            }
+        }
+
+        private synchronized long getLastSequence() {
+            return lastSequence;
+        }
+
+        private synchronized boolean isWritten(long sequence) {
+            return sequence < firstFailedSequence && (pending.isEmpty() || pending.first() > sequence);
+        }
+
+        private synchronized void awaitZero() throws InterruptedException {
+            while (!pending.isEmpty()) {
+                wait();
+            }
+            if (firstFailedSequence != Long.MAX_VALUE) {
+                throw new IllegalStateException("Не удалось записать страницы сайта");
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package searchengine.services.indexing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import searchengine.model.PageEntity;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class PendingPage {
+
+    private final PageEntity page;
+
+    private final Map<String, Integer> lemmas;
+
+    private final long sequence;
+}
@@ -0,0 +1,274 @@
+package searchengine.services.indexing;
+
+import lombok.Getter;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.jsoup.nodes.Document;
+import searchengine.config.SearchBot;
+import searchengine.dto.indexing.SiteData;
+import searchengine.model.PageEntity;
+import searchengine.model.PageVersion;
+import searchengine.model.SiteEntity;
+import searchengine.model.Status;
+import searchengine.services.LemmaFinder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общее состояние обхода одного сайта и обработка отдельной страницы:
+ * загрузка, лемматизация, передача на запись и поиск ссылок.
+ * При повторном обходе страницы запрашиваются условно (ETag/Last-Modified),
+ * а неизменившийся текст не лемматизируется заново.
+ */
+public class SiteCrawlContext {
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final IndexingServiceImpl indexingService;
+    private final SearchBot searchBot;
+    @Getter
+    private final SiteEntity site;
+    @Getter
+    private final SiteData siteData;
+    private final UrlSet visitedUrls;
+    private final String uriHost;
+    private final AtomicBoolean run;
+    private final LemmaFinder lemmaFinder;
+    private final ForkJoinPool lemmaPool;
+    private final HostPolitenessScheduler politenessScheduler;
+    private final int throttleRetries;
+    private final IndexingMetrics indexingMetrics;
+    private final Map<String, PageVersion> knownPages = new ConcurrentHashMap<>();
+    @Getter
+    private final AtomicInteger pendingPages = new AtomicInteger();
+
+    public SiteCrawlContext(SiteData siteData, SiteEntity site, SearchBot searchBot,
+                            IndexingServiceImpl indexingService, LemmaFinder lemmaFinder, UrlSet visitedUrls,
+                            ForkJoinPool lemmaPool, HostPolitenessScheduler politenessScheduler,
+                            int throttleRetries, IndexingMetrics indexingMetrics) {
+        this.siteData = siteData;
+        String uriHost = siteData.getUrl().getHost();
+        this.uriHost = uriHost.startsWith("www.") ? uriHost.substring(4) : uriHost;
+        this.indexingService = indexingService;
+        this.searchBot = searchBot;
+        this.site = site;
+        this.visitedUrls = visitedUrls;
+        this.run = new AtomicBoolean(true);
+        this.lemmaFinder = lemmaFinder;
+        this.lemmaPool = lemmaPool;
+        this.politenessScheduler = politenessScheduler;
+        this.throttleRetries = throttleRetries;
+        this.indexingMetrics = indexingMetrics;
+    }
+
+    public boolean isRunning() {
+        return run.get();
+    }
+
+    public void stop() {
+        run.set(false);
+        site.setStatus(Status.FAILED);
+        site.setLastError("Индексация остановлена!");
+        indexingService.saveSite(site);
+    }
+
+    /**
+     * Останавливает обход и помечает сайт как FAILED с текстом ошибки.
+     */
+    public void fail(Exception e) {
+        run.set(false);
+        site.setStatus(Status.FAILED);
+        site.setLastError(e.getClass().getName() + ":" + e.getMessage());
+        indexingService.saveSite(site);
+    }
+
+    public boolean markVisited(URL url) {
+        return visitedUrls.add(url.toString());
+    }
+
+    public void loadKnownPages(List<PageVersion> pages) {
+        pages.forEach(page -> knownPages.put(page.getPath(), page));
+    }
+
+    /**
+     * Отмечает посещёнными адреса сохранённых страниц. Вызывается при продолжении прерванного
+     * полного обхода: сайт был очищен в его начале, и все страницы в базе получены этим обходом.
+     */
+    public void markKnownPagesVisited() {
+        String siteUrl = getSiteUrlPrefix();
+        knownPages.keySet().forEach(path -> visitedUrls.add(siteUrl + path));
+    }
+
+    public Set<Long> getUnvisitedPageIds() {
+        Set<Long> ids = new HashSet<>();
+        String siteUrl = getSiteUrlPrefix();
+        knownPages.values().stream().filter(page -> !visitedUrls.contains(siteUrl + page.getPath()))
+                .forEach(page -> ids.add(page.getId()));
+        return ids;
+    }
+
+    private String getSiteUrlPrefix() {
+        return site.getUrl().endsWith("/") ? site.getUrl().substring(0, site.getUrl().length() - 1) : site.getUrl();
+    }
+
+    public boolean indexPage(URL url, List<URL> links) {
+        if (validateUrl(url) != UrlType.SITE_PAGE || !url.toString().startsWith(site.getUrl())
+                || url.toString().endsWith(".pdf")) {
+            return true;
+        }
+        PageEntity page = new PageEntity();
+        page.setPath(site.getUrl().endsWith("/") ? url.toString().replace(site.getUrl(), "/") :
+                url.toString().replace(site.getUrl(), ""));
+        page.setSite(site);
+        PageVersion known = knownPages.remove(page.getPath());
+        if (known != null) {
+            page.setId(known.getId());
+        }
+        FetchedPage fetchedPage;
+        try {
+            fetchedPage = fetchPage(url, known);
+            if (fetchedPage == null) {
+                List<String> storedLinks = indexingService.getPageLinks(known.getId());
+                links.addAll(storedLinks != null ? toSiteLinks(storedLinks) : walkSiteLinks(
+                        Jsoup.parse(indexingService.getPageContent(known.getId()), url.toString())));
+                return true;
+            }
+            page.setCode(fetchedPage.getCode());
+            page.setEtag(fetchedPage.getEtag());
+            page.setLastModified(fetchedPage.getLastModified());
+        } catch (HttpStatusException e) {
+            if (HostPolitenessScheduler.isThrottled(e.getStatusCode())) {
+                return true;
+            }
+            page.setContent(e.getMessage());
+            page.setCode(e.getStatusCode());
+            indexingService.savePage(page, Collections.emptyMap());
+            return true;
+        } catch (UnsupportedMimeTypeException | MalformedURLException e) {
+            return true;
+        } catch (IOException e) {
+            fail(e);
+            return false;
+        }
+        indexingMetrics.recordPage(site.getName(), fetchedPage.getContent().length, fetchedPage.isTruncated());
+        long memorySize = fetchedPage.getMemorySize();
+        indexingMetrics.addPageMemory(memorySize);
+        try {
+            String text = fetchedPage.getText();
+            page.setContentBytes(fetchedPage.getContent(), fetchedPage.getCharset());
+            page.setLinks(fetchedPage.getLinks());
+            page.setTitle(fetchedPage.getTitle());
+            page.setText(text);
+            page.setContentHash(sha256(text));
+            if (known != null && page.getContentHash().equals(known.getContentHash())) {
+                if (!Objects.equals(page.getEtag(), known.getEtag())
+                        || !Objects.equals(page.getLastModified(), known.getLastModified())) {
+                    indexingService.updatePageValidators(page);
+                }
+            } else if (!indexingService.savePage(page, collectLemmas(text))) {
+                return false;
+            }
+            links.addAll(toSiteLinks(fetchedPage.getLinks()));
+            return true;
+        } finally {
+            indexingMetrics.addPageMemory(-memorySize);
+        }
+    }
+
+    /**
+     * Загружает страницу вместе с телом, удерживая разрешение хоста до конца чтения тела:
+     * Jsoup читает тело лениво, и лимит одновременных загрузок и задержка ответа для
+     * {@link HostPolitenessScheduler} должны учитывать его передачу.
+     *
+     * @return {@code null}, если страница не изменилась с прошлого обхода (304)
+     */
+    private FetchedPage fetchPage(URL url, PageVersion known) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                politenessScheduler.acquire(url);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            }
+            long start = System.nanoTime();
+            int statusCode = HostPolitenessScheduler.OTHER_ERROR;
+            try {
+                Connection.Response response = known == null ? searchBot.getJsoupResponse(url.toString(), null, null) :
+                        searchBot.getJsoupResponse(url.toString(), known.getEtag(), known.getLastModified());
+                statusCode = response.statusCode();
+                if (known != null && statusCode == HTTP_NOT_MODIFIED) {
+                    return null;
+                }
+                long readStart = System.nanoTime();
+                FetchedPage fetchedPage = FetchedPage.read(response, searchBot.getMaxBodySize());
+                indexingMetrics.recordBodyRead(site.getName(), System.nanoTime() - readStart);
+                return fetchedPage;
+            } catch (IOException e) {
+                statusCode = HostPolitenessScheduler.statusCode(e);
+                if (!HostPolitenessScheduler.isThrottled(statusCode) || attempt > throttleRetries) {
+                    throw e;
+                }
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                politenessScheduler.release(url, elapsed, statusCode);
+                indexingMetrics.recordFetch(site.getName(), statusCode, elapsed);
+            }
+        }
+    }
+
+    private Map<String, Integer> collectLemmas(String text) {
+        if (ForkJoinTask.inForkJoinPool()) {
+            return lemmaFinder.collectLemmas(text);
+        }
+        return lemmaPool.submit(() -> lemmaFinder.collectLemmas(text)).join();
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private UrlType validateUrl(URL url) {
+        if (!(url.getHost().equals(uriHost) || url.getHost().endsWith(".".concat(uriHost)))) {
+            return UrlType.OTHER_SITE;
+        } else if (url.getPath().contains(".") && !url.getPath().endsWith(".html")) {
+            return UrlType.SITE_FILE;
+        } else {
+            return UrlType.SITE_PAGE;
+        }
+    }
+
+    private List<URL> walkSiteLinks(Document document) {
+        return toSiteLinks(document.select("a").eachAttr("abs:href"));
+    }
+
+    private List<URL> toSiteLinks(List<String> urlLinks) {
+        List<URL> links = new ArrayList<>();
+        for (String urlLink : urlLinks) {
+            try {
+                URL newUrl = new URL(urlLink);
+                links.add(new URL(newUrl.getProtocol(), newUrl.getHost(), newUrl.getPort(), newUrl.getPath()));
+            } catch (MalformedURLException ignored) {
+            }
+        }
+        return links;
+    }
+}
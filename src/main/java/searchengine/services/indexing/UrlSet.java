@@ -0,0 +1,13 @@
+package searchengine.services.indexing;
+
+/**
+ * Множество адресов, уже поставленных в очередь обхода сайта.
+ */
+public interface UrlSet {
+
+    boolean add(String url);
+
+    boolean contains(String url);
+
+    int size();
+}
@@ -3,6 +3,5 @@ package searchengine.services.indexing;
 enum UrlType {
     OTHER_SITE,
     SITE_FILE,
-    SITE_PAGE,
-    PAGE_IN_TABLE
+    SITE_PAGE
 }
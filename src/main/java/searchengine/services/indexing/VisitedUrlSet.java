@@ -0,0 +1,126 @@
+package searchengine.services.indexing;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Множество посещённых URL сайта. Хранит 64-битные отпечатки адресов в полосах (stripes)
+ * с открытой адресацией; полоса выбирается по старшим битам отпечатка, так что потоки обхода
+ * редко ждут одну блокировку. Фильтр Блума перед полосами не используется: поиск в полосе
+ * читает одну-две строки кэша, и фильтр в замерах {@code VisitedUrlSetBenchmark} только замедлял добавление.
+ */
+public class VisitedUrlSet implements UrlSet {
+
+    private static final int STRIPES = 64;
+
+    private final LongHashSet[] stripes = new LongHashSet[STRIPES];
+
+    public VisitedUrlSet(int expectedUrls) {
+        int stripeCapacity = Math.max(16, Math.max(expectedUrls, 1024) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongHashSet(stripeCapacity);
+        }
+    }
+
+    @Override
+    public boolean add(String url) {
+        long fingerprint = fingerprint(url);
+        return stripe(fingerprint).add(fingerprint);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = fingerprint(url);
+        return stripe(fingerprint).contains(fingerprint);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (LongHashSet stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private LongHashSet stripe(long fingerprint) {
+        return stripes[(int) (fingerprint >>> 58) & (STRIPES - 1)];
+    }
+
+    static long fingerprint(String url) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : url.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        long fingerprint = mix(hash);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static class LongHashSet {
+
+        private long[] table;
+
+        private int size;
+
+        private LongHashSet(int expected) {
+            table = new long[Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1];
+        }
+
+        private synchronized boolean add(long value) {
+            if (size * 2 >= table.length) {
+                resize();
+            }
+            if (!insert(table, value)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private synchronized boolean contains(long value) {
+            int mask = table.length - 1;
+            for (int i = (int) mix(value) & mask; table[i] != 0; i = (i + 1) & mask) {
+                if (table[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private void resize() {
+            long[] newTable = new long[table.length * 2];
+            for (long value : table) {
+                if (value != 0) {
+                    insert(newTable, value);
+                }
+            }
+            table = newTable;
+        }
+
+        private static boolean insert(long[] table, long value) {
+            int mask = table.length - 1;
+            int i = (int) mix(value) & mask;
+            while (table[i] != 0) {
+                if (table[i] == value) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = value;
+            return true;
+        }
+    }
+}
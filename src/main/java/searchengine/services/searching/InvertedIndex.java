@@ -0,0 +1,460 @@
+package searchengine.services.searching;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import searchengine.model.repositories.IndexRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Обратный индекс в памяти: для каждой леммы хранится отсортированный список страниц
+ * (varint-разности идентификаторов) и массив рангов. Строится из таблицы index при запуске
+ * и обновляется записью страниц после фиксации транзакции. Пока индекс не построен,
+ * поиск выполняется по базе данных.
+ */
+@Component
+@RequiredArgsConstructor
+public class InvertedIndex implements ApplicationRunner {
+
+    private final IndexRepository indexRepository;
+
+    private final ThreadPoolTaskExecutor threadPoolTaskExecutor;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Integer, PostingList> postings = new HashMap<>();
+
+    private Map<Integer, int[]> lemmasByPage = new HashMap<>();
+
+    private List<Runnable> pendingChanges;
+
+    private volatile boolean ready;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        threadPoolTaskExecutor.execute(this::load);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Строит индекс из таблицы index без блокировки: изменения, пришедшие во время чтения,
+     * копятся в журнале и применяются к новому индексу при подмене под короткой блокировкой.
+     */
+    public synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Integer, PostingList> newPostings = new HashMap<>();
+        Map<Integer, int[]> newLemmasByPage = new HashMap<>();
+        try {
+            Map<Integer, LongList> lemmaPostings = new HashMap<>();
+            Map<Integer, LongList> pageLemmas = new HashMap<>();
+            indexRepository.forEachIndex((lemmaId, pageId, rank) -> {
+                int lemma = toIndexId(lemmaId);
+                int page = toIndexId(pageId);
+                lemmaPostings.computeIfAbsent(lemma, key -> new LongList())
+                        .add(((long) page << 32) | (Float.floatToRawIntBits(rank) & 0xFFFFFFFFL));
+                pageLemmas.computeIfAbsent(page, key -> new LongList()).add(lemma);
+            });
+            lemmaPostings.forEach((lemmaId, packed) -> {
+                long[] values = packed.toSortedArray();
+                PostingList list = new PostingList();
+                for (long value : values) {
+                    list.append((int) (value >>> 32), Float.intBitsToFloat((int) value));
+                }
+                newPostings.put(lemmaId, list);
+            });
+            pageLemmas.forEach((pageId, lemmaIds) -> newLemmasByPage.put(pageId, lemmaIds.toIntArray()));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            lemmasByPage = newLemmasByPage;
+            List<Runnable> changes = pendingChanges;
+            pendingChanges = null;
+            changes.forEach(Runnable::run);
+            ready = true;
+        } catch (RuntimeException e) {
+            disable(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putPages(Map<Long, Map<Long, Float>> lemmaRanksByPage) {
+        applyChange(() -> putPagesLocked(lemmaRanksByPage));
+    }
+
+    public void removePages(Collection<Long> pageIds) {
+        applyChange(() -> removePagesLocked(pageIds));
+    }
+
+    /**
+     * Пересекает списки страниц лемм, начиная с самого редкого, и передаёт в {@code topPages}
+     * каждую страницу, содержащую все леммы, с суммой их рангов.
+     */
+    public void collectTopPages(List<Long> lemmaIds, TopPages topPages) {
+        lock.readLock().lock();
+        try {
+            Cursor[] cursors = new Cursor[lemmaIds.size()];
+            for (int i = 0; i < cursors.length; i++) {
+                long lemmaId = lemmaIds.get(i);
+                PostingList list = lemmaId > Integer.MAX_VALUE ? null : postings.get((int) lemmaId);
+                if (list == null) {
+                    return;
+                }
+                cursors[i] = new Cursor(list);
+            }
+            Arrays.sort(cursors, Comparator.comparingInt(cursor -> cursor.list.size));
+            int target = cursors[0].advance(0);
+            candidates:
+            while (target != Cursor.END) {
+                float score = 0;
+                for (Cursor cursor : cursors) {
+                    int page = cursor.advance(target);
+                    if (page == Cursor.END) {
+                        return;
+                    } else if (page > target) {
+                        target = page;
+                        continue candidates;
+                    }
+                    score += cursor.rank();
+                }
+                topPages.offer(target, score);
+                target = cursors[0].advance(target + 1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Применяет изменение к построенному индексу или, пока индекс строится, записывает его
+     * в журнал. До первой загрузки изменения не нужны: загрузка прочитает их из базы.
+     */
+    private void applyChange(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            } else if (ready) {
+                change.run();
+            }
+        } catch (RuntimeException e) {
+            disable(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Отключает индекс, если изменение не удалось применить: поиск переходит на базу данных
+     * до следующей загрузки.
+     */
+    private void disable(RuntimeException e) {
+        e.printStackTrace();
+        ready = false;
+        postings = new HashMap<>();
+        lemmasByPage = new HashMap<>();
+    }
+
+    private void putPagesLocked(Map<Long, Map<Long, Float>> lemmaRanksByPage) {
+        removePagesLocked(lemmaRanksByPage.keySet());
+        Map<Integer, LongList> lemmaPostings = new HashMap<>();
+        lemmaRanksByPage.forEach((pageId, lemmaRanks) -> {
+            int page = toIndexId(pageId);
+            int[] lemmaIds = new int[lemmaRanks.size()];
+            int i = 0;
+            for (Map.Entry<Long, Float> entry : lemmaRanks.entrySet()) {
+                int lemma = toIndexId(entry.getKey());
+                lemmaIds[i++] = lemma;
+                lemmaPostings.computeIfAbsent(lemma, key -> new LongList())
+                        .add(((long) page << 32) | (Float.floatToRawIntBits(entry.getValue()) & 0xFFFFFFFFL));
+            }
+            if (lemmaIds.length > 0) {
+                lemmasByPage.put(page, lemmaIds);
+            }
+        });
+        lemmaPostings.forEach((lemmaId, packed) ->
+                postings.computeIfAbsent(lemmaId, key -> new PostingList()).merge(packed.toSortedArray()));
+    }
+
+    private void removePagesLocked(Collection<Long> pageIds) {
+        Map<Integer, LongList> removedByLemma = new HashMap<>();
+        for (Long pageId : pageIds) {
+            int[] lemmaIds = pageId > Integer.MAX_VALUE ? null : lemmasByPage.remove(pageId.intValue());
+            if (lemmaIds != null) {
+                for (int lemmaId : lemmaIds) {
+                    removedByLemma.computeIfAbsent(lemmaId, key -> new LongList()).add(pageId);
+                }
+            }
+        }
+        removedByLemma.forEach((lemmaId, removed) -> {
+            PostingList list = postings.get(lemmaId);
+            if (list != null && list.remove(removed.toSortedArray()) == 0) {
+                postings.remove(lemmaId);
+            }
+        });
+    }
+
+    /**
+     * Списки страниц хранят идентификаторы как int: идентификатор больше {@link Integer#MAX_VALUE}
+     * не помещается в индекс.
+     */
+    private static int toIndexId(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Идентификатор " + id + " не помещается в обратный индекс");
+        }
+        return (int) id;
+    }
+
+    private static class PostingList {
+
+        private static final int BLOCK_SIZE = 128;
+
+        private byte[] pageDeltas = new byte[8];
+
+        private int[] blockPages = new int[1];
+
+        private int[] blockOffsets = new int[1];
+
+        private int byteSize;
+
+        private float[] ranks = new float[2];
+
+        private int size;
+
+        private int lastPage;
+
+        private void append(int page, float rank) {
+            if (byteSize + 5 > pageDeltas.length) {
+                pageDeltas = Arrays.copyOf(pageDeltas, Math.max(pageDeltas.length * 2, byteSize + 5));
+            }
+            if (size == ranks.length) {
+                ranks = Arrays.copyOf(ranks, size * 2);
+            }
+            int delta = page - lastPage;
+            while ((delta & ~0x7F) != 0) {
+                pageDeltas[byteSize++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            pageDeltas[byteSize++] = (byte) delta;
+            if (size % BLOCK_SIZE == 0) {
+                int block = size / BLOCK_SIZE;
+                if (block == blockPages.length) {
+                    blockPages = Arrays.copyOf(blockPages, block * 2);
+                    blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+                }
+                blockPages[block] = page;
+                blockOffsets[block] = byteSize;
+            }
+            ranks[size++] = rank;
+            lastPage = page;
+        }
+
+        private int blocks() {
+            return (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        }
+
+        private int[] pages() {
+            int[] pages = new int[size];
+            int page = 0;
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = pageDeltas[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                page += delta;
+                pages[i] = page;
+            }
+            return pages;
+        }
+
+        private void merge(long[] packedPostings) {
+            if (size == 0 || (int) (packedPostings[0] >>> 32) > lastPage) {
+                for (long posting : packedPostings) {
+                    append((int) (posting >>> 32), Float.intBitsToFloat((int) posting));
+                }
+                return;
+            }
+            int[] oldPages = pages();
+            float[] oldRanks = Arrays.copyOf(ranks, size);
+            reset();
+            int i = 0;
+            int j = 0;
+            while (i < oldPages.length || j < packedPostings.length) {
+                int newPage = j < packedPostings.length ? (int) (packedPostings[j] >>> 32) : Integer.MAX_VALUE;
+                if (i < oldPages.length && oldPages[i] < newPage) {
+                    append(oldPages[i], oldRanks[i]);
+                    i++;
+                } else {
+                    if (i < oldPages.length && oldPages[i] == newPage) {
+                        i++;
+                    }
+                    append(newPage, Float.intBitsToFloat((int) packedPostings[j++]));
+                }
+            }
+        }
+
+        private int remove(long[] removedPages) {
+            int[] oldPages = pages();
+            float[] oldRanks = Arrays.copyOf(ranks, size);
+            reset();
+            for (int i = 0, j = 0; i < oldPages.length; i++) {
+                while (j < removedPages.length && removedPages[j] < oldPages[i]) {
+                    j++;
+                }
+                if (j >= removedPages.length || removedPages[j] != oldPages[i]) {
+                    append(oldPages[i], oldRanks[i]);
+                }
+            }
+            pageDeltas = Arrays.copyOf(pageDeltas, Math.max(8, byteSize));
+            ranks = Arrays.copyOf(ranks, Math.max(2, size));
+            return size;
+        }
+
+        private void reset() {
+            byteSize = 0;
+            size = 0;
+            lastPage = 0;
+        }
+    }
+
+    /**
+     * Курсор по списку страниц: переход к странице не меньше заданной ищет блок
+     * галопом по таблице пропусков и декодирует только этот блок.
+     */
+    private static class Cursor {
+
+        private static final int END = Integer.MAX_VALUE;
+
+        private final PostingList list;
+
+        private int index = -1;
+
+        private int block = -1;
+
+        private int page;
+
+        private int position;
+
+        private Cursor(PostingList list) {
+            this.list = list;
+        }
+
+        private int advance(int target) {
+            if (index >= 0 && page >= target) {
+                return page;
+            }
+            int blocks = list.blocks();
+            int from = Math.max(block, 0);
+            if (from + 1 < blocks && list.blockPages[from + 1] <= target) {
+                int low = from + 1;
+                int step = 1;
+                while (low + step < blocks && list.blockPages[low + step] <= target) {
+                    low += step;
+                    step <<= 1;
+                }
+                int high = Math.min(low + step, blocks) - 1;
+                while (low < high) {
+                    int middle = (low + high + 1) >>> 1;
+                    if (list.blockPages[middle] <= target) {
+                        low = middle;
+                    } else {
+                        high = middle - 1;
+                    }
+                }
+                seekBlock(low);
+            } else if (index < 0) {
+                if (list.size == 0) {
+                    return END;
+                }
+                seekBlock(0);
+            }
+            while (page < target) {
+                if (++index >= list.size) {
+                    page = END;
+                    return END;
+                }
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = list.pageDeltas[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                page += delta;
+                if (index % PostingList.BLOCK_SIZE == 0) {
+                    block++;
+                }
+            }
+            return page;
+        }
+
+        private void seekBlock(int newBlock) {
+            block = newBlock;
+            index = newBlock * PostingList.BLOCK_SIZE;
+            page = list.blockPages[newBlock];
+            position = list.blockOffsets[newBlock];
+        }
+
+        private float rank() {
+            return list.ranks[index];
+        }
+    }
+
+    private static class LongList {
+
+        private long[] values = new long[4];
+
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        private int[] toIntArray() {
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = (int) values[i];
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package searchengine.services.searching;
+
+import lombok.Getter;
+import searchengine.services.LemmaFinder;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сопоставление словоформ страницы леммам запроса. Каждая словоформа разбирается один раз
+ * за запрос, дальше совпадение определяется одним обращением к хэш-таблице. Общий для всех
+ * сниппетов выдачи, поэтому потокобезопасен.
+ */
+public class QueryWordMatcher {
+
+    private static final String NO_LEMMA = "";
+
+    private final LemmaFinder lemmaFinder;
+
+    @Getter
+    private final Set<String> lemmas;
+
+    private final Map<String, String> lemmaByWord = new ConcurrentHashMap<>();
+
+    public QueryWordMatcher(LemmaFinder lemmaFinder, Set<String> lemmas) {
+        this.lemmaFinder = lemmaFinder;
+        this.lemmas = Set.copyOf(lemmas);
+    }
+
+    public String findLemma(String word) {
+        String lemma = lemmaByWord.computeIfAbsent(word, key -> {
+            String queryLemma = lemmaFinder.findLemma(key.toLowerCase(Locale.ROOT), lemmas);
+            return queryLemma != null ? queryLemma : NO_LEMMA;
+        });
+        return lemma.isEmpty() ? null : lemma;
+    }
+}
@@ -0,0 +1,57 @@
+package searchengine.services.searching;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Время этапов поиска: одна метрика {@code search.phase} с тегом этапа. Пересечение списков
+ * страниц и суммирование рангов выполняются одним проходом и учитываются как {@code intersection},
+ * {@code scoring} — упорядочивание лучших страниц.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    @Getter
+    private Timer lemmatization;
+
+    @Getter
+    private Timer lemmaLookup;
+
+    @Getter
+    private Timer intersection;
+
+    @Getter
+    private Timer scoring;
+
+    @Getter
+    private Timer pageLoading;
+
+    @Getter
+    private Timer snippets;
+
+    @PostConstruct
+    private void init() {
+        lemmatization = phaseTimer("lemmatization");
+        lemmaLookup = phaseTimer("lemma_lookup");
+        intersection = phaseTimer("intersection");
+        scoring = phaseTimer("scoring");
+        pageLoading = phaseTimer("page_loading");
+        snippets = phaseTimer("snippets");
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("search.phase")
+                .description("Время этапа поиска")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
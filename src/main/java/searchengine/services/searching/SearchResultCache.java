@@ -0,0 +1,136 @@
+package searchengine.services.searching;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchConfig;
+import searchengine.dto.searching.SearchCacheData;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU-кэш ранжированных результатов поиска по набору лемм запроса и фильтру сайта.
+ * Хранит упорядоченные страницы без сниппетов, поэтому разные страницы выдачи одного
+ * запроса берутся из одной записи. Изменение страниц сайта удаляет записи этого сайта
+ * и записи поиска по всем сайтам. Эпохи ведутся по сайтам и отдельно для поиска по всем
+ * сайтам: результат не кэшируется, только если во время расчёта изменились страницы его сайта.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchResultCache {
+
+    private final SearchConfig searchConfig;
+
+    private final Map<String, CachedRanking> rankings = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedRanking> eldest) {
+            if (size() > searchConfig.getResultCacheSize()) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final Map<String, AtomicLong> siteEpochs = new ConcurrentHashMap<>();
+
+    private final AtomicLong allSitesEpoch = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public int getDepth() {
+        return searchConfig.getResultCacheDepth();
+    }
+
+    /**
+     * Эпоха записей по сайту; {@code site == null} — поиск по всем сайтам.
+     */
+    public long getEpoch(String site) {
+        return epoch(site).get();
+    }
+
+    /**
+     * Возвращает сохранённое ранжирование, если в нём есть хотя бы {@code depth} страниц
+     * или все найденные страницы.
+     */
+    public TopPages get(Set<String> lemmaSet, String site, int depth) {
+        CachedRanking cached;
+        synchronized (rankings) {
+            cached = rankings.get(key(lemmaSet, site));
+        }
+        TopPages topPages = cached == null ? null : cached.getTopPages();
+        if (topPages != null && (topPages.size() >= depth || topPages.size() == topPages.getTotal())) {
+            hits.incrementAndGet();
+            return topPages;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(Set<String> lemmaSet, String site, TopPages topPages, long computedEpoch) {
+        if (searchConfig.getResultCacheSize() <= 0) {
+            return;
+        }
+        synchronized (rankings) {
+            if (epoch(site).get() == computedEpoch) {
+                rankings.put(key(lemmaSet, site), new CachedRanking(site, topPages));
+            }
+        }
+    }
+
+    public void invalidate(String site) {
+        synchronized (rankings) {
+            epoch(site).incrementAndGet();
+            allSitesEpoch.incrementAndGet();
+            Iterator<CachedRanking> iterator = rankings.values().iterator();
+            while (iterator.hasNext()) {
+                CachedRanking cached = iterator.next();
+                if (cached.getSite() == null || cached.getSite().equals(site)) {
+                    iterator.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public SearchCacheData getStatistics() {
+        SearchCacheData data = new SearchCacheData();
+        synchronized (rankings) {
+            data.setSize(rankings.size());
+        }
+        data.setMaxSize(searchConfig.getResultCacheSize());
+        long hitCount = hits.get();
+        long requestCount = hitCount + misses.get();
+        data.setHits(hitCount);
+        data.setMisses(misses.get());
+        data.setEvictions(evictions.get());
+        data.setInvalidations(invalidations.get());
+        data.setHitRate(requestCount == 0 ? 0 : (double) hitCount / requestCount);
+        return data;
+    }
+
+    private AtomicLong epoch(String site) {
+        return site == null ? allSitesEpoch : siteEpochs.computeIfAbsent(site, key -> new AtomicLong());
+    }
+
+    private static String key(Set<String> lemmaSet, String site) {
+        return site + "|" + String.join(" ", new TreeSet<>(lemmaSet));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class CachedRanking {
+
+        private final String site;
+
+        private final TopPages topPages;
+    }
+}
@@ -1,5 +1,6 @@
 package searchengine.services.searching;
 
+import searchengine.dto.searching.SearchCacheResponse;
 import searchengine.dto.searching.SearchingResponse;
 
 public interface SearchingService {
@@ -7,4 +8,6 @@ public interface SearchingService {
     SearchingResponse search(String query, Integer offset, Integer limit);
 
     SearchingResponse search(String query, String site, Integer offset, Integer limit);
+
+    SearchCacheResponse getCacheStatistics();
 }
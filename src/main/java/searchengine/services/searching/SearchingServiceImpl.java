@@ -3,19 +3,18 @@ package searchengine.services.searching;
 import lombok.RequiredArgsConstructor;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.springframework.beans.support.PagedListHolder;
 import org.springframework.stereotype.Service;
+import searchengine.dto.searching.SearchCacheResponse;
 import searchengine.dto.searching.SearchData;
 import searchengine.dto.searching.SearchingResponse;
 import searchengine.model.*;
 import searchengine.model.repositories.IndexRepository;
 import searchengine.model.repositories.LemmaRepository;
+import searchengine.model.repositories.PageRepository;
 import searchengine.model.repositories.SiteRepository;
 import searchengine.services.LemmaFinder;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -27,69 +26,107 @@ public class SearchingServiceImpl implements SearchingService {
 
     private final SiteRepository siteRepository;
 
+    private final PageRepository pageRepository;
+
     private final LemmaFinder lemmaFinder;
 
+    private final InvertedIndex invertedIndex;
+
+    private final SnippetExecutor snippetExecutor;
+
+    private final SearchResultCache searchResultCache;
+
+    private final SearchMetrics searchMetrics;
+
     @Override
     public SearchingResponse search(String query, Integer offset, Integer limit) {
-        Set<String> lemmaSet = lemmaFinder.getLemmasSet(query);
-        List<LemmaEntity> lemmas = lemmaRepository.findAllByLemmaInOrderByFrequencyAsc(lemmaSet);
-        List<SearchData> searchDataList = getSearchPages(lemmas, lemmaSet);
-        return new SearchingResponse(true, searchDataList.size(), pageOfList(searchDataList, offset, limit));
+        Set<String> lemmaSet = searchMetrics.getLemmatization().record(() -> lemmaFinder.getLemmasSet(query));
+        return getSearchPages(rankPages(lemmaSet, null, offset + limit), lemmaSet, offset, limit);
     }
 
     @Override
     public SearchingResponse search(String query, String site, Integer offset, Integer limit) {
-        Set<String> lemmaSet = lemmaFinder.getLemmasSet(query);
-        SiteEntity siteEntity = siteRepository.findByUrlEquals(site);
-        List<LemmaEntity> lemmas = lemmaRepository
-                .findAllByLemmaInAndSiteEqualsOrderByFrequencyAsc(lemmaSet, siteEntity);
-        List<SearchData> searchDataList = getSearchPages(lemmas, lemmaSet);
-        return new SearchingResponse(true, searchDataList.size(), pageOfList(searchDataList, offset, limit));
+        Set<String> lemmaSet = searchMetrics.getLemmatization().record(() -> lemmaFinder.getLemmasSet(query));
+        return getSearchPages(rankPages(lemmaSet, site, offset + limit), lemmaSet, offset, limit);
     }
 
-    private List<SearchData> getSearchPages(List<LemmaEntity> lemmas, Set<String> lemmaSet) {
-        TreeSet<SearchData> searchDataTreeSet = new TreeSet<>(Comparator.comparing(SearchData::getRelevance)
-                .thenComparing(SearchData::getSnippet).reversed());
-        HashMap<SiteEntity, Set<PageEntity>> pagesMap = new HashMap<>();
-        lemmas.forEach(lemma -> {
-            if (pagesMap.containsKey(lemma.getSite())) {
-                pagesMap.get(lemma.getSite()).retainAll(lemma.getIndexes().stream().map(IndexEntity::getPage)
-                        .collect(Collectors.toList()));
+    @Override
+    public SearchCacheResponse getCacheStatistics() {
+        return new SearchCacheResponse(true, searchResultCache.getStatistics());
+    }
+
+    private TopPages rankPages(Set<String> lemmaSet, String site, int depth) {
+        TopPages cached = searchResultCache.get(lemmaSet, site, depth);
+        if (cached != null) {
+            return cached;
+        }
+        long epoch = searchResultCache.getEpoch(site);
+        List<LemmaEntity> lemmas = searchMetrics.getLemmaLookup().record(() -> site == null ?
+                lemmaRepository.findAllByLemmaInOrderByFrequencyAsc(lemmaSet) :
+                lemmaRepository.findAllByLemmaInAndSiteEqualsOrderByFrequencyAsc(lemmaSet,
+                        siteRepository.findByUrlEquals(site)));
+        Map<SiteEntity, List<Long>> lemmaIdsBySite = new LinkedHashMap<>();
+        lemmas.forEach(lemma -> lemmaIdsBySite.computeIfAbsent(lemma.getSite(), key -> new ArrayList<>())
+                .add(lemma.getId()));
+        TopPages topPages = new TopPages(Math.max(depth, searchResultCache.getDepth()));
+        searchMetrics.getIntersection().record(() -> {
+            if (invertedIndex.isReady()) {
+                lemmaIdsBySite.values().forEach(lemmaIds -> invertedIndex.collectTopPages(lemmaIds, topPages));
             } else {
-                Set<PageEntity> list = lemma.getIndexes().stream().map(IndexEntity::getPage)
-                        .collect(Collectors.toSet());
-                pagesMap.put(lemma.getSite(), list);
+                lemmaIdsBySite.values().forEach(lemmaIds -> indexRepository
+                        .findRelevanceByLemmaIds(lemmaIds, lemmaIds.size())
+                        .forEach(page -> topPages.offer(page.getPageId(), page.getRelevance().floatValue())));
             }
         });
-        AtomicReference<Float> maxRelevance = new AtomicReference<>(0F);
-        pagesMap.forEach((site, pages) -> {
-            for (PageEntity page : pages) {
-                Document document = Jsoup.parse(page.getContent());
-                SnippetParser snippetParser = new SnippetParser(document, lemmaFinder, lemmaSet);
-                SearchData searchData = new SearchData();
-                searchData.setSite(site.getUrl());
-                searchData.setSiteName(site.getName());
-                searchData.setUri(page.getPath().substring(1));
-                searchData.setTitle(document.title());
-                searchData.setSnippet(snippetParser.getSnippet());
-                float relevance = indexRepository.findAllByPageAndLemmaIn(page, lemmas).stream()
-                        .map(IndexEntity::getRank).reduce(0F, Float::sum);
-                if (maxRelevance.get() < relevance) {
-                    maxRelevance.set(relevance);
-                }
-                searchData.setRelevance(relevance);
-                searchDataTreeSet.add(searchData);
+        searchMetrics.getScoring().record(topPages::sort);
+        searchResultCache.put(lemmaSet, site, topPages, epoch);
+        return topPages;
+    }
+
+    private SearchingResponse getSearchPages(TopPages topPages, Set<String> lemmaSet, Integer offset,
+                                             Integer limit) {
+        int end = Math.min(offset + limit, topPages.size());
+        List<Long> pageIds = new ArrayList<>();
+        for (int i = offset; i < end; i++) {
+            pageIds.add(topPages.getPage(i));
+        }
+        Map<Long, PageEntity> pagesById = new HashMap<>();
+        searchMetrics.getPageLoading().record(() ->
+                pageRepository.findAllById(pageIds).forEach(page -> pagesById.put(page.getId(), page)));
+        List<SearchData> searchDataList = new ArrayList<>();
+        List<Runnable> snippetTasks = new ArrayList<>();
+        QueryWordMatcher wordMatcher = new QueryWordMatcher(lemmaFinder, lemmaSet);
+        for (int i = offset; i < end; i++) {
+            PageEntity page = pagesById.get(topPages.getPage(i));
+            if (page != null) {
+                SearchData searchData = createSearchData(page, topPages.getScore(0) / topPages.getScore(i));
+                searchDataList.add(searchData);
+                snippetTasks.add(() -> setSnippet(searchData, page, wordMatcher));
             }
-        });
-        searchDataTreeSet.forEach(searchData -> searchData.setRelevance(maxRelevance.get()
-                / searchData.getRelevance()));
-        return new ArrayList<>(searchDataTreeSet);
+        }
+        searchMetrics.getSnippets().record(() -> snippetExecutor.invokeAll(snippetTasks));
+        return new SearchingResponse(true, topPages.getTotal(), searchDataList);
+    }
+
+    private SearchData createSearchData(PageEntity page, float relevance) {
+        SearchData searchData = new SearchData();
+        searchData.setSite(page.getSite().getUrl());
+        searchData.setSiteName(page.getSite().getName());
+        searchData.setUri(page.getPath().substring(1));
+        searchData.setRelevance(relevance);
+        return searchData;
     }
 
-    private List<SearchData> pageOfList(List<SearchData> searchDataList, Integer offset, Integer limit) {
-        PagedListHolder<SearchData> pages = new PagedListHolder<>(searchDataList);
-        pages.setPageSize(limit);
-        pages.setPage(offset);
-        return pages.getPageList();
+    private void setSnippet(SearchData searchData, PageEntity page, QueryWordMatcher wordMatcher) {
+        String text = page.getText();
+        if (text != null) {
+            searchData.setTitle(page.getTitle());
+            searchData.setSnippet(new SnippetParser(text, page.getWordOffsets(), wordMatcher).getSnippet());
+        } else {
+            String content = pageRepository.findContent(page.getId());
+            Document document = Jsoup.parse(content == null ? "" : content);
+            searchData.setTitle(document.title());
+            searchData.setSnippet(new SnippetParser(document, wordMatcher).getSnippet());
+        }
     }
 }
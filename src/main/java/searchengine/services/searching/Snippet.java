@@ -6,7 +6,7 @@ import lombok.Setter;
 import java.util.*;
 
 @Getter
-public class Snippet implements Comparable<Snippet> {
+public class Snippet {
 
     @Setter
     private static int maxSnippetLength;
@@ -15,11 +15,6 @@ public class Snippet implements Comparable<Snippet> {
 
     private final List<Match> matches = new ArrayList<>();
 
-    private int countUpCaseLetter = 0;
-
-    @Setter
-    private String text = "";
-
     public List<Match> getMatches() {
         return new ArrayList<>(matches);
     }
@@ -28,47 +23,8 @@ public class Snippet implements Comparable<Snippet> {
         if (!matches.isEmpty() && match.getEnd() - matches.get(0).getStart() > maxSnippetLength) {
             return false;
         }
-        if (Character.isUpperCase(match.getWord().charAt(0))) {
-            countUpCaseLetter++;
-        }
-        String lemma = match.getLemma();
-        lemmaSet.add(lemma);
+        lemmaSet.add(match.getLemma());
         matches.add(match);
         return true;
     }
-
-    public int getSnippetLength() {
-        if (text.isEmpty()) {
-            if (matches.isEmpty()) {
-                return 0;
-            } else if (matches.size() == 1) {
-                return matches.get(0).getEnd() - matches.get(0).getStart();
-            } else {
-                return matches.get(matches.size() - 1).getEnd() - matches.get(0).getStart();
-            }
-        }
-        return text.length();
-    }
-
-    @Override
-    public int compareTo(Snippet o) {
-        return Comparator.comparing(Snippet::getLemmaSet, Comparator.comparingInt(Set::size))
-                .thenComparing(Snippet::getCountUpCaseLetter)
-                .thenComparing(Snippet::getMatches, Comparator.comparing(List::size))
-                .thenComparing(Snippet::getText, Comparator.comparingInt(String::length)).compare(o, this);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(matches);
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) return true;
-        if (!(obj instanceof Snippet)) return false;
-        Snippet snippet = (Snippet) obj;
-        return lemmaSet.equals(snippet.lemmaSet) && matches.equals(snippet.matches);
-    }
 }
-
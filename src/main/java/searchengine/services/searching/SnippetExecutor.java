@@ -0,0 +1,51 @@
+package searchengine.services.searching;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул для построения сниппетов выдачи. Число потоков и очередь ограничены; если очередь
+ * заполнена, задача выполняется в потоке запроса.
+ */
+public class SnippetExecutor {
+
+    @Getter
+    private final ThreadPoolExecutor executor;
+
+    public SnippetExecutor(int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "search-snippet-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public void invokeAll(List<Runnable> tasks) {
+        List<Future<?>> futures = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                futures.forEach(pending -> pending.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Построение сниппетов прервано", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException
+                        ? runtimeException : new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -2,71 +2,234 @@ package searchengine.services.searching;
 
 import lombok.Setter;
 import org.jsoup.nodes.Document;
-import org.jsoup.select.Elements;
+import searchengine.model.WordOffsets;
 import searchengine.services.JsoupUtil;
-import searchengine.services.LemmaFinder;
 
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.IntStream;
 
+/**
+ * Выбор фрагментов текста со словами запроса. Совпадения хранятся в массивах, окна длиной
+ * не больше {@code maxSnippetLength} строятся одним проходом двух указателей; затем жадно
+ * берутся окна, покрывающие больше ещё не показанных лемм запроса, а при равенстве — более
+ * короткие, чтобы в длину сниппета поместились окна для остальных лемм. Если часть лемм
+ * не поместилась, окна выбираются ещё и прежним способом, в порядке текста, и берётся выбор,
+ * показавший больше лемм, так что новый выбор не показывает меньше лемм, чем прежний.
+ */
 public class SnippetParser {
 
+    private static final int MAX_LEMMA_BITS = Long.SIZE;
+
     @Setter
     private static int maxSnippetLength;
 
-    private final LemmaFinder lemmaFinder;
+    private final QueryWordMatcher wordMatcher;
 
     private final Set<String> lemmas;
 
-    private final Set<Snippet> snippetSet = new TreeSet<>();
+    private final Map<String, Integer> lemmaBits = new HashMap<>();
 
     private final String text;
 
-    public SnippetParser(Document document, LemmaFinder lemmaFinder, Set<String> lemmas) {
-        this.lemmaFinder = lemmaFinder;
-        this.lemmas = new HashSet<>(lemmas);
-        Elements elements = JsoupUtil.documentContentSelector(document);
-        this.text = String.join("\n", elements.eachText());
-        findSnippets();
+    private int[] starts = new int[16];
+
+    private int[] ends = new int[16];
+
+    private int[] bits = new int[16];
+
+    private String[] matchLemmas = new String[16];
+
+    private boolean[] upperCase = new boolean[16];
+
+    private int size;
+
+    private int[] windowEnds;
+
+    private long[] windowLemmas;
+
+    private int[] windowUpperCase;
+
+    public SnippetParser(Document document, QueryWordMatcher wordMatcher) {
+        this(JsoupUtil.documentText(document), null, wordMatcher);
+    }
+
+    public SnippetParser(String text, int[] wordOffsets, QueryWordMatcher wordMatcher) {
+        this.wordMatcher = wordMatcher;
+        this.lemmas = new HashSet<>(wordMatcher.getLemmas());
+        this.text = text;
+        for (String lemma : lemmas) {
+            lemmaBits.put(lemma, Math.min(lemmaBits.size(), MAX_LEMMA_BITS - 1));
+        }
+        findMatches(wordOffsets != null ? wordOffsets : WordOffsets.find(text));
+        findWindows();
+    }
+
+    private void findMatches(int[] wordOffsets) {
+        for (int i = 0; i + 1 < wordOffsets.length; i += 2) {
+            int start = wordOffsets[i];
+            int end = wordOffsets[i + 1];
+            String lemma = wordMatcher.findLemma(text.substring(start, end));
+            if (lemma != null) {
+                addMatch(start, end, lemma);
+            }
+        }
     }
 
-    private void findSnippets() {
-        List<Match> matches = new ArrayList<>();
-        Pattern.compile("[А-Яа-я]+").matcher(text).results().forEach(match -> {
-            lemmas.stream().filter(l -> lemmaFinder.isLemmaApplyWord(l, match.group().toLowerCase(Locale.ROOT)))
-                    .findFirst().ifPresent(lemma -> {
-                        matches.add(new Match(match.start(), match.end(), lemma, match.group()));
-                    });
-        });
-        IntStream.range(0, matches.size()).forEach(iArray -> {
-            Snippet snippet = new Snippet();
-            snippetSet.add(snippet);
-            int offset = 0;
-            boolean isAdded;
-            do {
-                Match match = matches.get(iArray + offset);
-                isAdded = snippet.addMatch(match);
-            } while (isAdded && iArray + ++offset < matches.size() - 1);
-        });
+    private void addMatch(int start, int end, String lemma) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            bits = Arrays.copyOf(bits, capacity);
+            matchLemmas = Arrays.copyOf(matchLemmas, capacity);
+            upperCase = Arrays.copyOf(upperCase, capacity);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        bits[size] = lemmaBits.get(lemma);
+        matchLemmas[size] = lemma;
+        upperCase[size] = Character.isUpperCase(text.charAt(start));
+        size++;
+    }
+
+    /**
+     * Для каждого совпадения находит самое длинное окно, которое с него начинается, вместе
+     * с набором лемм и числом слов с заглавной буквы в нём.
+     */
+    private void findWindows() {
+        windowEnds = new int[size];
+        windowLemmas = new long[size];
+        windowUpperCase = new int[size];
+        int[] bitCounts = new int[MAX_LEMMA_BITS];
+        long lemmaMask = 0;
+        int upperCaseCount = 0;
+        int right = 0;
+        for (int left = 0; left < size; left++) {
+            while (right < size && (right == left || ends[right] - starts[left] <= maxSnippetLength)) {
+                if (bitCounts[bits[right]]++ == 0) {
+                    lemmaMask |= 1L << bits[right];
+                }
+                if (upperCase[right]) {
+                    upperCaseCount++;
+                }
+                right++;
+            }
+            windowEnds[left] = right;
+            windowLemmas[left] = lemmaMask;
+            windowUpperCase[left] = upperCaseCount;
+            if (--bitCounts[bits[left]] == 0) {
+                lemmaMask &= ~(1L << bits[left]);
+            }
+            if (upperCase[left]) {
+                upperCaseCount--;
+            }
+        }
     }
 
     public String getSnippet() {
-        StringBuilder stringBuilder = new StringBuilder();
-        snippetSet.stream().takeWhile(i -> !lemmas.isEmpty() || stringBuilder.length() < maxSnippetLength)
-                .filter(i -> i.getLemmaSet().stream().anyMatch(lemmas::contains) &&
-                        stringBuilder.length() + i.getSnippetLength() < maxSnippetLength)
-                .map(snippet -> {
-                    lemmas.removeAll(snippet.getLemmaSet());
-                    String string = new SnippetFormatter(snippet, text).toString();
-                    snippet.setText(string);
-                    return string;
-                }).forEach(stringBuilder::append);
-        if (!lemmas.isEmpty()) {
+        long queryLemmas = 0;
+        for (int bit : lemmaBits.values()) {
+            queryLemmas |= 1L << bit;
+        }
+        Selection selection = selectByCoverage(queryLemmas);
+        if (!selection.missingLemmas.isEmpty()) {
+            Selection inTextOrder = selectInTextOrder(queryLemmas);
+            if (inTextOrder.missingLemmas.size() < selection.missingLemmas.size()) {
+                selection = inTextOrder;
+            }
+        }
+        StringBuilder stringBuilder = selection.text;
+        if (!selection.missingLemmas.isEmpty()) {
             stringBuilder.append("<br/>Не найдено: <s>");
-            stringBuilder.append(String.join("</s>, <s>", lemmas));
+            stringBuilder.append(String.join("</s>, <s>", selection.missingLemmas));
             stringBuilder.append(".");
         }
         return stringBuilder.toString().replace("\n", " * ");
     }
+
+    /**
+     * Жадно берёт окна, покрывающие больше ещё не показанных лемм, пока они помещаются в длину
+     * сниппета. Форматируются только выбранные окна.
+     */
+    private Selection selectByCoverage(long queryLemmas) {
+        Selection selection = new Selection(lemmas);
+        long remaining = queryLemmas;
+        while (remaining != 0) {
+            int best = -1;
+            for (int window = 0; window < size; window++) {
+                if ((windowLemmas[window] & remaining) != 0
+                        && selection.text.length() + windowLength(window) < maxSnippetLength
+                        && (best < 0 || isBetter(window, best, remaining))) {
+                    best = window;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            append(selection, best, windowEnds[best]);
+            remaining &= ~windowLemmas[best];
+        }
+        return selection;
+    }
+
+    /**
+     * Прежний выбор окон: окна с новыми леммами берутся в порядке текста, пока помещаются в длину
+     * сниппета, и не доходят до последнего совпадения текста. Короткие окна в начале оставляют
+     * место для следующих, когда контекст окна с большим числом лемм занимает почти всю длину.
+     */
+    private Selection selectInTextOrder(long queryLemmas) {
+        Selection selection = new Selection(lemmas);
+        long remaining = queryLemmas;
+        for (int window = 0; window < size && remaining != 0; window++) {
+            int end = Math.max(window + 1, Math.min(windowEnds[window], size - 1));
+            long lemmaMask = 0;
+            for (int i = window; i < end; i++) {
+                lemmaMask |= 1L << bits[i];
+            }
+            if ((lemmaMask & remaining) != 0
+                    && selection.text.length() + ends[end - 1] - starts[window] < maxSnippetLength) {
+                append(selection, window, end);
+                remaining &= ~lemmaMask;
+            }
+        }
+        return selection;
+    }
+
+    private void append(Selection selection, int from, int to) {
+        Snippet snippet = new Snippet();
+        for (int i = from; i < to; i++) {
+            snippet.addMatch(new Match(starts[i], ends[i], matchLemmas[i], text.substring(starts[i], ends[i])));
+        }
+        selection.missingLemmas.removeAll(snippet.getLemmaSet());
+        selection.text.append(new SnippetFormatter(snippet, text));
+    }
+
+    private int windowLength(int window) {
+        return ends[windowEnds[window] - 1] - starts[window];
+    }
+
+    private boolean isBetter(int window, int best, long remaining) {
+        int lemmaCount = Long.bitCount(windowLemmas[window] & remaining);
+        int bestLemmaCount = Long.bitCount(windowLemmas[best] & remaining);
+        if (lemmaCount != bestLemmaCount) {
+            return lemmaCount > bestLemmaCount;
+        }
+        if (windowLength(window) != windowLength(best)) {
+            return windowLength(window) < windowLength(best);
+        }
+        if (windowUpperCase[window] != windowUpperCase[best]) {
+            return windowUpperCase[window] > windowUpperCase[best];
+        }
+        return windowEnds[window] - window > windowEnds[best] - best;
+    }
+
+    private static class Selection {
+
+        private final StringBuilder text = new StringBuilder();
+
+        private final Set<String> missingLemmas;
+
+        private Selection(Set<String> lemmas) {
+            missingLemmas = new HashSet<>(lemmas);
+        }
+    }
 }
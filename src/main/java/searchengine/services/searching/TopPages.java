@@ -0,0 +1,112 @@
+package searchengine.services.searching;
+
+import lombok.Getter;
+
+/**
+ * Ограниченная min-куча лучших страниц по релевантности. Хранит не больше {@code capacity}
+ * страниц, но считает все предложенные, чтобы вернуть точное число найденных.
+ */
+public class TopPages {
+
+    private final long[] pages;
+
+    private final float[] scores;
+
+    private int size;
+
+    private boolean sorted;
+
+    @Getter
+    private int total;
+
+    public TopPages(int capacity) {
+        this.pages = new long[Math.max(capacity, 0)];
+        this.scores = new float[pages.length];
+    }
+
+    public void offer(long page, float score) {
+        if (sorted) {
+            throw new IllegalStateException("Страницы уже упорядочены");
+        }
+        total++;
+        if (size < pages.length) {
+            pages[size] = page;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && isWorse(0, page, score)) {
+            pages[0] = page;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Упорядочивает страницы по убыванию релевантности, при равной релевантности — по возрастанию id.
+     * После вызова куча больше не принимает страницы.
+     */
+    public void sort() {
+        int heapSize = size;
+        for (int last = heapSize - 1; last > 0; last--) {
+            swap(0, last);
+            size = last;
+            siftDown(0);
+        }
+        size = heapSize;
+        sorted = true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getPage(int index) {
+        return pages[index];
+    }
+
+    public float getScore(int index) {
+        return scores[index];
+    }
+
+    private boolean isWorse(int index, long page, float score) {
+        return scores[index] < score || (scores[index] == score && pages[index] > page);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isWorse(index, pages[parent], scores[parent])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && isWorse(left, pages[worst], scores[worst])) {
+                worst = left;
+            }
+            if (right < size && isWorse(right, pages[worst], scores[worst])) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long page = pages[i];
+        pages[i] = pages[j];
+        pages[j] = page;
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
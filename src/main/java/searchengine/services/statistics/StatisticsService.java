@@ -1,8 +1,11 @@
 package searchengine.services.statistics;
 
+import searchengine.dto.statistics.MorphologyCacheResponse;
 import searchengine.dto.statistics.StatisticsResponse;
 
 public interface StatisticsService {
 
     StatisticsResponse getStatistics();
+
+    MorphologyCacheResponse getMorphologyCacheStatistics();
 }
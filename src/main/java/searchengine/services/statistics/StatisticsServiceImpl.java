@@ -3,15 +3,22 @@ package searchengine.services.statistics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import searchengine.dto.statistics.DetailedStatisticsItem;
+import searchengine.dto.statistics.MorphologyCacheResponse;
 import searchengine.dto.statistics.StatisticsData;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.dto.statistics.TotalStatistics;
+import searchengine.model.SiteCount;
 import searchengine.model.SiteEntity;
+import searchengine.model.repositories.LemmaRepository;
+import searchengine.model.repositories.PageRepository;
 import searchengine.model.repositories.SiteRepository;
+import searchengine.services.LemmaFinder;
 import searchengine.services.indexing.IndexingService;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -19,23 +26,33 @@ public class StatisticsServiceImpl implements StatisticsService {
 
     private final SiteRepository siteRepository;
 
+    private final PageRepository pageRepository;
+
+    private final LemmaRepository lemmaRepository;
+
     private final IndexingService indexingService;
 
+    private final LemmaFinder lemmaFinder;
+
     @Override
     public StatisticsResponse getStatistics() {
         List<SiteEntity> siteEntityList = siteRepository.findAll();
+        Map<Long, Long> pagesBySite = countsBySite(pageRepository.countBySite());
+        Map<Long, Long> lemmasBySite = countsBySite(lemmaRepository.countBySite());
         TotalStatistics total = new TotalStatistics();
         total.setSites(siteEntityList.size());
         total.setIndexing(indexingService.isIndexing());
         List<DetailedStatisticsItem> detailed = new ArrayList<>();
         for (SiteEntity site : siteEntityList) {
-            total.setPages(total.getPages() + site.getPages().size());
-            total.setLemmas(total.getLemmas() + site.getLemmas().size());
+            int pages = pagesBySite.getOrDefault(site.getId(), 0L).intValue();
+            int lemmas = lemmasBySite.getOrDefault(site.getId(), 0L).intValue();
+            total.setPages(total.getPages() + pages);
+            total.setLemmas(total.getLemmas() + lemmas);
             DetailedStatisticsItem item = new DetailedStatisticsItem();
             item.setName(site.getName());
             item.setUrl(site.getUrl());
-            item.setPages(site.getPages().size());
-            item.setLemmas(site.getLemmas().size());
+            item.setPages(pages);
+            item.setLemmas(lemmas);
             item.setStatus(site.getStatus().name());
             item.setError(site.getLastError());
             item.setStatusTime(site.getStatusTime().getTime());
@@ -49,4 +66,15 @@ public class StatisticsServiceImpl implements StatisticsService {
         response.setResult(true);
         return response;
     }
+
+    private static Map<Long, Long> countsBySite(List<SiteCount> siteCounts) {
+        Map<Long, Long> counts = new HashMap<>();
+        siteCounts.forEach(siteCount -> counts.put(siteCount.getSiteId(), siteCount.getCount()));
+        return counts;
+    }
+
+    @Override
+    public MorphologyCacheResponse getMorphologyCacheStatistics() {
+        return new MorphologyCacheResponse(true, lemmaFinder.getMorphologyCacheStatistics());
+    }
 }
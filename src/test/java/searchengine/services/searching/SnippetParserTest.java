@@ -0,0 +1,152 @@
+package searchengine.services.searching;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import searchengine.model.WordOffsets;
+import searchengine.services.JsoupUtil;
+import searchengine.services.LemmaFinder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение выбора окон сниппета с прежней реализацией на страницах корпуса бенчмарков:
+ * ни на одном запросе новый выбор не теряет больше лемм запроса, чем прежний, а по всем
+ * запросам теряет меньше.
+ */
+class SnippetParserTest {
+
+    private static final int SNIPPET_LENGTH = 200;
+
+    private static final int QUERIES_PER_PAGE = 200;
+
+    private static final String NOT_FOUND = "<br/>Не найдено: <s>";
+
+    private static final List<String> CORPUS_PAGES = List.of("news-small", "about-medium", "catalog-large");
+
+    private static LemmaFinder lemmaFinder;
+
+    @BeforeAll
+    static void init() throws IOException {
+        lemmaFinder = LemmaFinder.getInstance(10_000);
+        SnippetParser.setMaxSnippetLength(SNIPPET_LENGTH);
+        Snippet.setMaxSnippetLength(SNIPPET_LENGTH);
+    }
+
+    @Test
+    void findsMoreQueryLemmasThanPreviousSelection() throws IOException {
+        int missing = 0;
+        int previousMissing = 0;
+        for (String page : CORPUS_PAGES) {
+            String text = JsoupUtil.documentText(Jsoup.parse(loadPage(page)));
+            for (String query : queries(text, page.hashCode())) {
+                QueryWordMatcher wordMatcher = new QueryWordMatcher(lemmaFinder, lemmaFinder.getLemmasSet(query));
+                int queryMissing = missingLemmas(new SnippetParser(text, null, wordMatcher).getSnippet()).size();
+                int queryPreviousMissing = previousMissingLemmas(text, wordMatcher).size();
+                assertTrue(queryMissing <= queryPreviousMissing, () -> page + ", «" + query + "»: не найдено лемм "
+                        + queryMissing + ", прежде " + queryPreviousMissing);
+                missing += queryMissing;
+                previousMissing += queryPreviousMissing;
+            }
+        }
+        assertTrue(previousMissing == 0 || missing < previousMissing,
+                "не найдено лемм " + missing + ", прежде " + previousMissing);
+    }
+
+    @Test
+    void includesLastMatchOfTextInWindow() {
+        String text = "Во дворе дома стоит красная машина";
+        QueryWordMatcher wordMatcher = new QueryWordMatcher(lemmaFinder, lemmaFinder.getLemmasSet("красная машина"));
+        String snippet = new SnippetParser(text, null, wordMatcher).getSnippet();
+        assertTrue(snippet.contains("<b>красная</b> <b>машина</b>"), snippet);
+        assertFalse(snippet.contains(NOT_FOUND), snippet);
+        assertEquals(snippet.indexOf(" ... "), snippet.lastIndexOf(" ... "), snippet);
+    }
+
+    private static String loadPage(String page) throws IOException {
+        try (InputStream in = SnippetParserTest.class.getResourceAsStream("/corpus/" + page + ".html")) {
+            assertNotNull(in, page);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<String> queries(String text, long seed) {
+        List<String> words = Arrays.stream(text.split("[^А-Яа-яЁё]+")).filter(word -> word.length() > 3).toList();
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> queries = new ArrayList<>();
+        queries.add(words.get(words.size() - 1));
+        queries.add(words.get(words.size() - 2) + " " + words.get(words.size() - 1));
+        queries.add(words.get(0) + " " + words.get(words.size() - 1));
+        queries.add(words.get(0) + " синхрофазотрон");
+        while (queries.size() < QUERIES_PER_PAGE) {
+            int size = 1 + random.nextInt(5);
+            queries.add(random.ints(size, 0, words.size()).mapToObj(words::get).collect(Collectors.joining(" ")));
+        }
+        return queries;
+    }
+
+    private static Set<String> missingLemmas(String snippet) {
+        int notFound = snippet.indexOf(NOT_FOUND);
+        if (notFound < 0) {
+            return Set.of();
+        }
+        String lemmas = snippet.substring(notFound + NOT_FOUND.length(), snippet.length() - 1);
+        return Set.of(lemmas.split("</s>, <s>"));
+    }
+
+    /**
+     * Прежний выбор окон: окно строится от каждого совпадения и не доходит до последнего совпадения
+     * текста, окна добавляются в {@link TreeSet} до заполнения и упорядочены по числу лемм, слов
+     * с заглавной буквы и совпадений, затем берутся по порядку, пока помещаются в длину сниппета.
+     */
+    private static Set<String> previousMissingLemmas(String text, QueryWordMatcher wordMatcher) {
+        List<Match> matches = new ArrayList<>();
+        int[] wordOffsets = WordOffsets.find(text);
+        for (int i = 0; i + 1 < wordOffsets.length; i += 2) {
+            String word = text.substring(wordOffsets[i], wordOffsets[i + 1]);
+            String lemma = wordMatcher.findLemma(word);
+            if (lemma != null) {
+                matches.add(new Match(wordOffsets[i], wordOffsets[i + 1], lemma, word));
+            }
+        }
+        Set<Snippet> snippets = new TreeSet<>(Comparator.comparingInt((Snippet snippet) -> snippet.getLemmaSet().size())
+                .thenComparingInt(SnippetParserTest::upperCaseCount)
+                .thenComparingInt(snippet -> snippet.getMatches().size())
+                .reversed());
+        for (int first = 0; first < matches.size(); first++) {
+            Snippet snippet = new Snippet();
+            snippets.add(snippet);
+            int offset = 0;
+            boolean added;
+            do {
+                added = snippet.addMatch(matches.get(first + offset));
+            } while (added && first + ++offset < matches.size() - 1);
+        }
+        Set<String> lemmas = new HashSet<>(wordMatcher.getLemmas());
+        StringBuilder stringBuilder = new StringBuilder();
+        snippets.stream().takeWhile(snippet -> !lemmas.isEmpty() || stringBuilder.length() < SNIPPET_LENGTH)
+                .filter(snippet -> snippet.getLemmaSet().stream().anyMatch(lemmas::contains)
+                        && stringBuilder.length() + spanLength(snippet) < SNIPPET_LENGTH)
+                .forEach(snippet -> {
+                    lemmas.removeAll(snippet.getLemmaSet());
+                    stringBuilder.append(new SnippetFormatter(snippet, text));
+                });
+        return lemmas;
+    }
+
+    private static int upperCaseCount(Snippet snippet) {
+        return (int) snippet.getMatches().stream()
+                .filter(match -> Character.isUpperCase(match.getWord().charAt(0))).count();
+    }
+
+    private static int spanLength(Snippet snippet) {
+        List<Match> matches = snippet.getMatches();
+        return matches.isEmpty() ? 0 : matches.get(matches.size() - 1).getEnd() - matches.get(0).getStart();
+    }
+}